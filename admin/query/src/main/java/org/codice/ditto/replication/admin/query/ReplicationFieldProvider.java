@@ -18,8 +18,11 @@ import java.util.List;
 import org.codice.ddf.admin.api.fields.FunctionField;
 import org.codice.ddf.admin.common.fields.base.function.BaseFieldProvider;
 import org.codice.ditto.replication.admin.query.replications.discover.GetReplications;
+import org.codice.ditto.replication.admin.query.replications.persist.CancelReplication;
 import org.codice.ditto.replication.admin.query.replications.persist.CreateReplication;
 import org.codice.ditto.replication.admin.query.replications.persist.DeleteReplication;
+import org.codice.ditto.replication.admin.query.replications.persist.PauseReplication;
+import org.codice.ditto.replication.admin.query.replications.persist.ResumeReplication;
 import org.codice.ditto.replication.admin.query.replications.persist.UpdateReplication;
 import org.codice.ditto.replication.admin.query.sites.discover.GetReplicationSites;
 import org.codice.ditto.replication.admin.query.sites.persist.CreateReplicationSite;
@@ -33,7 +36,7 @@ public class ReplicationFieldProvider extends BaseFieldProvider {
   public static final String TYPE_NAME = "Replication";
 
   public static final String DESCRIPTION =
-      "Provides methods for querying and modifying replication configurations and sites.";
+      "Provides methods for querying, modifying and controlling replication configurations and sites.";
 
   private GetReplications getReplications;
 
@@ -51,6 +54,12 @@ public class ReplicationFieldProvider extends BaseFieldProvider {
 
   private DeleteReplicationSite deleteReplicationSite;
 
+  private CancelReplication cancelReplication;
+
+  private PauseReplication pauseReplication;
+
+  private ResumeReplication resumeReplication;
+
   public ReplicationFieldProvider(
       GetReplications getReplications,
       GetReplicationSites getReplicationSites,
@@ -59,7 +68,10 @@ public class ReplicationFieldProvider extends BaseFieldProvider {
       DeleteReplication deleteReplication,
       CreateReplicationSite createReplicationSite,
       UpdateReplicationSite updateReplicationSite,
-      DeleteReplicationSite deleteReplicationSite) {
+      DeleteReplicationSite deleteReplicationSite,
+      CancelReplication cancelReplication,
+      PauseReplication pauseReplication,
+      ResumeReplication resumeReplication) {
     super(DEFAULT_FIELD_NAME, TYPE_NAME, DESCRIPTION);
     this.getReplications = getReplications;
     this.getReplicationSites = getReplicationSites;
@@ -69,6 +81,9 @@ public class ReplicationFieldProvider extends BaseFieldProvider {
     this.createReplicationSite = createReplicationSite;
     this.updateReplicationSite = updateReplicationSite;
     this.deleteReplicationSite = deleteReplicationSite;
+    this.cancelReplication = cancelReplication;
+    this.pauseReplication = pauseReplication;
+    this.resumeReplication = resumeReplication;
   }
 
   @Override
@@ -84,6 +99,9 @@ public class ReplicationFieldProvider extends BaseFieldProvider {
         deleteReplication,
         createReplicationSite,
         updateReplicationSite,
-        deleteReplicationSite);
+        deleteReplicationSite,
+        cancelReplication,
+        pauseReplication,
+        resumeReplication);
   }
 }
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.admin.query.replications.persist;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Set;
+import org.codice.ddf.admin.api.Field;
+import org.codice.ddf.admin.api.fields.FunctionField;
+import org.codice.ddf.admin.common.fields.base.BaseFunctionField;
+import org.codice.ddf.admin.common.fields.base.scalar.BooleanField;
+import org.codice.ddf.admin.common.fields.common.PidField;
+import org.codice.ditto.replication.api.Replicator;
+
+public class CancelReplication extends BaseFunctionField<BooleanField> {
+
+  public static final String FIELD_NAME = "cancelReplication";
+
+  public static final String DESCRIPTION =
+      "Cancels the running and pending runs of a replication. Returns false if there were none.";
+
+  public static final BooleanField RETURN_TYPE = new BooleanField();
+
+  private PidField id;
+
+  private Replicator replicator;
+
+  public CancelReplication(Replicator replicator) {
+    super(FIELD_NAME, DESCRIPTION);
+
+    this.replicator = replicator;
+    id = new PidField("id");
+  }
+
+  @Override
+  public BooleanField performFunction() {
+    BooleanField successful = new BooleanField();
+    successful.setValue(replicator.cancel(id.getValue()));
+    return successful;
+  }
+
+  @Override
+  public BooleanField getReturnType() {
+    return RETURN_TYPE;
+  }
+
+  @Override
+  public List<Field> getArguments() {
+    return ImmutableList.of(id);
+  }
+
+  @Override
+  public FunctionField<BooleanField> newInstance() {
+    return new CancelReplication(replicator);
+  }
+
+  @Override
+  public Set<String> getFunctionErrorCodes() {
+    return ImmutableSet.of();
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import java.util.Date;
+import org.apache.commons.lang.StringUtils;
+import org.codice.ditto.replication.api.HighWaterMark;
+
+public class HighWaterMarkImpl implements HighWaterMark {
+
+  private final String configurationId;
+
+  private final String source;
+
+  private final String destination;
+
+  private final Date metacardModified;
+
+  private final String metacardId;
+
+  private final Date deletedOn;
+
+  private final String deletedId;
+
+  private final Date lastCompleteRunStart;
+
+  public HighWaterMarkImpl(
+      String configurationId,
+      String source,
+      String destination,
+      Date metacardModified,
+      String metacardId,
+      Date deletedOn,
+      String deletedId,
+      Date lastCompleteRunStart) {
+    this.configurationId = notBlank(configurationId);
+    this.source = notBlank(source);
+    this.destination = notBlank(destination);
+    this.metacardModified = metacardModified;
+    this.metacardId = metacardId;
+    this.deletedOn = deletedOn;
+    this.deletedId = deletedId;
+    this.lastCompleteRunStart = lastCompleteRunStart;
+  }
+
+  private static String notBlank(String s) {
+    if (StringUtils.isNotBlank(s)) {
+      return s;
+    } else {
+      throw new IllegalArgumentException("String argument may not be empty");
+    }
+  }
+
+  @Override
+  public String getConfigurationId() {
+    return configurationId;
+  }
+
+  @Override
+  public String getSource() {
+    return source;
+  }
+
+  @Override
+  public String getDestination() {
+    return destination;
+  }
+
+  @Override
+  public Date getMetacardModified() {
+    return metacardModified;
+  }
+
+  @Override
+  public String getMetacardId() {
+    return metacardId;
+  }
+
+  @Override
+  public Date getDeletedOn() {
+    return deletedOn;
+  }
+
+  @Override
+  public String getDeletedId() {
+    return deletedId;
+  }
+
+  @Override
+  public Date getLastCompleteRunStart() {
+    return lastCompleteRunStart;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "HighWaterMarkImpl{configurationId=%s, source=%s, destination=%s, metacardModified=%s, metacardId=%s, deletedOn=%s, deletedId=%s, lastCompleteRunStart=%s}",
+        configurationId,
+        source,
+        destination,
+        metacardModified,
+        metacardId,
+        deletedOn,
+        deletedId,
+        lastCompleteRunStart);
+  }
+}
@@ -25,6 +25,7 @@ import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.ProcessingDetails;
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.ResourceRequest;
 import ddf.catalog.operation.ResourceResponse;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.UpdateResponse;
@@ -58,7 +59,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
@@ -82,17 +85,46 @@ import org.codice.ditto.replication.api.ReplicationException;
 import org.codice.ditto.replication.api.ReplicationStore;
 import org.opengis.filter.Filter;
 import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class HybridStore extends AbstractCswStore implements ReplicationStore {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(HybridStore.class);
+
   public static final String REGISTRY_TAG = "registry";
 
   private static final String REGISTRY_IDENTITY_NODE = "registry.local.registry-identity-node";
 
   private static final String CONTENT_DISPOSITION = "Content-Disposition";
 
+  private static final String RANGE = "Range";
+
+  private static final String CONTENT_RANGE = "Content-Range";
+
+  static final int DEFAULT_CLIENT_POOL_SIZE = 4;
+
+  static final long DEFAULT_CLIENT_IDLE_TIMEOUT_SECONDS = 60;
+
+  /** How long the result of checking the remote system is available is reused for */
+  private static final long AVAILABILITY_CACHE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
   private SecureCxfClientFactory<RESTService> restClientFactory;
 
+  private int clientPoolSize = DEFAULT_CLIENT_POOL_SIZE;
+
+  private long clientIdleTimeoutSeconds = DEFAULT_CLIENT_IDLE_TIMEOUT_SECONDS;
+
+  private WebClientPool clientPool;
+
+  private final Object availabilityLock = new Object();
+
+  private volatile boolean available;
+
+  private volatile long availabilityCheckedAt;
+
+  private volatile long latency = -1;
+
   private String remoteName;
 
   public HybridStore(
@@ -112,6 +144,22 @@ public class HybridStore extends AbstractCswStore implements ReplicationStore {
   public void init() {
     super.init();
     configureCswSource();
+    clientPool =
+        new WebClientPool(
+            this::createSystemClient,
+            clientPoolSize,
+            clientIdleTimeoutSeconds,
+            TimeUnit.SECONDS);
+  }
+
+  /** Sets the most REST clients, and so connections, to keep open between storage requests. */
+  public void setClientPoolSize(int clientPoolSize) {
+    this.clientPoolSize = clientPoolSize;
+  }
+
+  /** Sets how long in seconds a REST client can go unused before its connection is closed. */
+  public void setClientIdleTimeout(long clientIdleTimeoutSeconds) {
+    this.clientIdleTimeoutSeconds = clientIdleTimeoutSeconds;
   }
 
   @Override
@@ -154,6 +202,13 @@ public class HybridStore extends AbstractCswStore implements ReplicationStore {
       client = client.query("qualifier", qualifier);
     }
 
+    // resume a partial download by asking for only the bytes that haven't been downloaded yet
+    Serializable bytesToSkip = requestProperties.get(ResourceRequest.BYTES_TO_SKIP);
+    boolean skipRequested = bytesToSkip instanceof Long && (Long) bytesToSkip > 0;
+    if (skipRequested) {
+      client.header(RANGE, String.format("bytes=%d-", (Long) bytesToSkip));
+    }
+
     Response response = client.get();
     if (!response.getStatusInfo().getFamily().equals(Response.Status.Family.SUCCESSFUL)) {
       throw new ResourceNotFoundException(
@@ -169,7 +224,14 @@ public class HybridStore extends AbstractCswStore implements ReplicationStore {
     Resource resource =
         new ResourceImpl(
             (InputStream) response.getEntity(), response.getMediaType().toString(), filename);
-    return new ResourceResponseImpl(resource);
+    Map<String, Serializable> responseProperties = new HashMap<>();
+    // servers that don't support ranges send the whole resource instead
+    responseProperties.put(
+        ResourceResponse.BYTES_SKIPPED,
+        skipRequested
+            && (response.getStatus() == Response.Status.PARTIAL_CONTENT.getStatusCode()
+                || response.getHeaderString(CONTENT_RANGE) != null));
+    return new ResourceResponseImpl(null, responseProperties, resource);
   }
 
   private String getQualifier(URI uri) {
@@ -271,9 +333,13 @@ public class HybridStore extends AbstractCswStore implements ReplicationStore {
     try {
       MultipartBody multipartBody = createBody(item);
       response = client.post(multipartBody);
+      // the body has to be read before the connection can be used for another request
+      response.bufferEntity();
     } catch (IOException e) {
       throw new IngestException(
           String.format("Could not create attachment for %s", item.getFilename()), e);
+    } finally {
+      clientPool.release(client);
     }
     return response;
   }
@@ -286,9 +352,13 @@ public class HybridStore extends AbstractCswStore implements ReplicationStore {
       client.path(metacardId);
       MultipartBody multipartBody = createBody(item);
       response = client.post(multipartBody);
+      // the body has to be read before the connection can be used for another request
+      response.bufferEntity();
     } catch (IOException e) {
       throw new IngestException(
           String.format("Could not create attachment for %s", item.getFilename()), e);
+    } finally {
+      clientPool.release(client);
     }
     return response;
   }
@@ -338,31 +408,79 @@ public class HybridStore extends AbstractCswStore implements ReplicationStore {
     return new MultipartBody(attachments);
   }
 
+  /**
+   * Borrows a client for a storage request from the pool. The client must be released back to the
+   * pool once the response has been read.
+   */
   private WebClient setupClient() {
     MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
     headers.add(HttpHeaders.CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA);
 
-    Security security = Security.getInstance();
-    WebClient client =
-        security.runAsAdmin(
-            () ->
-                AccessController.doPrivilegedWithCombiner(
-                    (PrivilegedAction<WebClient>)
-                        () ->
-                            restClientFactory.getWebClientForSubject(security.getSystemSubject())));
-
+    WebClient client = clientPool.borrow();
     client.headers(headers);
     client.accept(MediaType.APPLICATION_JSON);
     return client;
   }
 
+  private WebClient createSystemClient() {
+    Security security = Security.getInstance();
+    return security.runAsAdmin(
+        () ->
+            AccessController.doPrivilegedWithCombiner(
+                (PrivilegedAction<WebClient>)
+                    () -> restClientFactory.getWebClientForSubject(security.getSystemSubject())));
+  }
+
+  /**
+   * Checks the remote system is available with a HEAD request to its catalog endpoint rather than
+   * downloading its capabilities. The result is reused for a few seconds, so a burst of failures
+   * doesn't turn into a burst of checks.
+   */
   @Override
   public boolean isAvailable() {
-    return (getCapabilities() != null);
+    if (System.currentTimeMillis() - availabilityCheckedAt > AVAILABILITY_CACHE_MILLIS) {
+      synchronized (availabilityLock) {
+        if (System.currentTimeMillis() - availabilityCheckedAt > AVAILABILITY_CACHE_MILLIS) {
+          checkAvailability();
+        }
+      }
+    }
+    return available;
+  }
+
+  @Override
+  public long getLatency() {
+    return latency;
+  }
+
+  private void checkAvailability() {
+    final long start = System.currentTimeMillis();
+    boolean reachable;
+    WebClient client = clientPool.borrow();
+    try {
+      Response response = client.invoke(HttpMethod.HEAD, null);
+      // any response other than a server error means the system is up
+      reachable =
+          !response.getStatusInfo().getFamily().equals(Response.Status.Family.SERVER_ERROR);
+      response.close();
+    } catch (RuntimeException e) {
+      LOGGER.debug("Failed to reach {}", cswSourceConfiguration.getCswUrl(), e);
+      reachable = false;
+    } finally {
+      clientPool.release(client);
+    }
+
+    final long now = System.currentTimeMillis();
+    latency = reachable ? now - start : -1;
+    available = reachable;
+    availabilityCheckedAt = now;
   }
 
   @Override
   public void close() {
+    if (clientPool != null) {
+      clientPool.close();
+    }
     destroy(100);
   }
 }
@@ -167,6 +167,11 @@ public class LocalCatalogResourceStore implements ReplicationStore {
     return SystemInfo.getSiteName();
   }
 
+  @Override
+  public long getLatency() {
+    return 0;
+  }
+
   @Override
   public void close() {
     // Do nothing
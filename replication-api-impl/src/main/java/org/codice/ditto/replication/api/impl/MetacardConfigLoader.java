@@ -44,6 +44,16 @@ public class MetacardConfigLoader implements ReplicatorConfigLoader {
 
   private static final int DEFAULT_FAILURE_RETRY_COUNT = 5;
 
+  private static final int DEFAULT_BATCH_SIZE = 1;
+
+  private static final int DEFAULT_TRANSFER_THREAD_COUNT = 1;
+
+  private static final long DEFAULT_SCHEDULE_INTERVAL = 0L;
+
+  private static final int DEFAULT_PRIORITY = 5;
+
+  private static final long DEFAULT_MAX_RUN_DURATION = 0L;
+
   private final CatalogFramework framework;
 
   private final FilterBuilder filterBuilder;
@@ -177,6 +187,25 @@ public class MetacardConfigLoader implements ReplicatorConfigLoader {
         ReplicationConfig.FAILURE_RETRY_COUNT,
         config.getFailureRetryCount(),
         DEFAULT_FAILURE_RETRY_COUNT);
+    helper.setIfPresentOrDefault(
+        mcard, ReplicationConfig.BATCH_SIZE, config.getBatchSize(), DEFAULT_BATCH_SIZE);
+    helper.setIfPresentOrDefault(
+        mcard,
+        ReplicationConfig.TRANSFER_THREAD_COUNT,
+        config.getTransferThreadCount(),
+        DEFAULT_TRANSFER_THREAD_COUNT);
+    helper.setIfPresentOrDefault(
+        mcard,
+        ReplicationConfig.SCHEDULE_INTERVAL,
+        config.getScheduleInterval(),
+        DEFAULT_SCHEDULE_INTERVAL);
+    helper.setIfPresentOrDefault(
+        mcard, ReplicationConfig.PRIORITY, config.getPriority(), DEFAULT_PRIORITY);
+    helper.setIfPresentOrDefault(
+        mcard,
+        ReplicationConfig.MAX_RUN_DURATION,
+        config.getMaxRunDuration(),
+        DEFAULT_MAX_RUN_DURATION);
 
     return mcard;
   }
@@ -198,6 +227,19 @@ public class MetacardConfigLoader implements ReplicatorConfigLoader {
     config.setFailureRetryCount(
         helper.getAttributeValueOrDefault(
             mcard, ReplicationConfig.FAILURE_RETRY_COUNT, DEFAULT_FAILURE_RETRY_COUNT));
+    config.setBatchSize(
+        helper.getAttributeValueOrDefault(mcard, ReplicationConfig.BATCH_SIZE, DEFAULT_BATCH_SIZE));
+    config.setTransferThreadCount(
+        helper.getAttributeValueOrDefault(
+            mcard, ReplicationConfig.TRANSFER_THREAD_COUNT, DEFAULT_TRANSFER_THREAD_COUNT));
+    config.setScheduleInterval(
+        helper.getAttributeValueOrDefault(
+            mcard, ReplicationConfig.SCHEDULE_INTERVAL, DEFAULT_SCHEDULE_INTERVAL));
+    config.setPriority(
+        helper.getAttributeValueOrDefault(mcard, ReplicationConfig.PRIORITY, DEFAULT_PRIORITY));
+    config.setMaxRunDuration(
+        helper.getAttributeValueOrDefault(
+            mcard, ReplicationConfig.MAX_RUN_DURATION, DEFAULT_MAX_RUN_DURATION));
 
     try {
       config.setUrl(new URL(helper.getAttributeValueOrDefault(mcard, ReplicationConfig.URL, null)));
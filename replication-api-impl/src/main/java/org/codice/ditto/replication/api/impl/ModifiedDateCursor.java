@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import ddf.catalog.Constants;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.geotools.filter.FilterFactoryImpl;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+/**
+ * Pages through the results of a filter in ascending {@link Core#METACARD_MODIFIED} order, or the
+ * order of another date attribute, using the last record seen rather than a start index. Records
+ * with the same date are sorted by {@link Core#ID}, so each page is queried for with a filter that
+ * only matches records dated after the last date seen, or dated exactly then with a greater id than
+ * the last record seen. Every page costs the same to query for no matter how deep into the results
+ * it is, and records modified while paging are neither skipped nor repeated because of shifting
+ * offsets.
+ *
+ * <p>Not thread safe.
+ */
+class ModifiedDateCursor {
+
+  private static final FilterFactory FILTER_FACTORY = new FilterFactoryImpl();
+
+  private final FilterBuilder builder;
+
+  private final Filter filter;
+
+  private final String dateAttribute;
+
+  private final int pageSize;
+
+  /** The latest modified date seen so far, or {@code null} if no records have been seen */
+  private Date lastModified;
+
+  /** The greatest id of the records seen with a modified date of exactly {@link #lastModified} */
+  private String lastId;
+
+  ModifiedDateCursor(FilterBuilder builder, Filter filter, int pageSize) {
+    this(builder, filter, Core.METACARD_MODIFIED, pageSize);
+  }
+
+  /** @param dateAttribute the date attribute to page through the results in the order of */
+  ModifiedDateCursor(FilterBuilder builder, Filter filter, String dateAttribute, int pageSize) {
+    this.builder = builder;
+    this.filter = filter;
+    this.dateAttribute = dateAttribute;
+    this.pageSize = pageSize;
+  }
+
+  int getPageSize() {
+    return pageSize;
+  }
+
+  /** @return a request for the page of results after the records seen so far */
+  QueryRequest nextPageRequest() {
+    final Map<String, Serializable> properties =
+        Collections.singletonMap(
+            Constants.ADDITIONAL_SORT_BYS,
+            new SortBy[] {new SortByImpl(Core.ID, SortOrder.ASCENDING)});
+    return new QueryRequestImpl(
+        new QueryImpl(
+            createPageFilter(),
+            1,
+            pageSize,
+            new SortByImpl(dateAttribute, SortOrder.ASCENDING),
+            false,
+            0L),
+        properties);
+  }
+
+  /**
+   * Moves the cursor past a page of results returned for {@link #nextPageRequest()}.
+   *
+   * @return {@code false} if none of the results could be used to move the cursor
+   */
+  boolean advance(List<Result> page) {
+    boolean moved = false;
+    for (Result result : page) {
+      final Metacard metacard = result.getMetacard();
+      final Date modified = getDate(metacard, dateAttribute);
+      if (modified == null) {
+        continue;
+      }
+
+      final String id = metacard.getId();
+      if (lastModified == null || modified.after(lastModified)) {
+        lastModified = modified;
+        lastId = id;
+      } else if (modified.equals(lastModified) && isAfter(id, lastId)) {
+        lastId = id;
+      }
+      moved = true;
+    }
+    return moved;
+  }
+
+  /**
+   * Captures the position of the cursor along with the page of results that moved it there.
+   *
+   * @param results the results last passed to {@link #advance(List)}
+   */
+  Page createPage(List<Result> results) {
+    return new Page(results, lastModified, lastId);
+  }
+
+  private Filter createPageFilter() {
+    if (lastModified == null) {
+      return filter;
+    }
+    return builder.allOf(
+        filter, createModifiedAfterFilter(builder, dateAttribute, lastModified, lastId));
+  }
+
+  /**
+   * Creates a filter that matches records modified after a date, along with the records modified at
+   * exactly that date that have a greater id than the given one.
+   *
+   * @param idAtModified the id of the last record seen with exactly that date, or {@code null} to
+   *     match all of the records with that date
+   */
+  static Filter createModifiedAfterFilter(
+      FilterBuilder builder, String dateAttribute, Date modified, String idAtModified) {
+    // dates have millisecond precision, so this is the same as at or after modified
+    final Filter atOrAfter =
+        builder.attribute(dateAttribute).is().after().date(new Date(modified.getTime() - 1));
+    if (idAtModified == null) {
+      return atOrAfter;
+    }
+
+    final Filter after = builder.attribute(dateAttribute).is().after().date(modified);
+    final Filter at =
+        builder.allOf(
+            atOrAfter,
+            builder.attribute(dateAttribute).is().before().date(new Date(modified.getTime() + 1)));
+    final Filter idAfter =
+        FILTER_FACTORY.greater(
+            FILTER_FACTORY.property(Core.ID), FILTER_FACTORY.literal(idAtModified));
+    return builder.anyOf(after, builder.allOf(at, idAfter));
+  }
+
+  private static boolean isAfter(String id, String otherId) {
+    return id != null && (otherId == null || id.compareTo(otherId) > 0);
+  }
+
+  /** @return the value of a date attribute of a metacard, or {@code null} if it isn't set */
+  static Date getDate(Metacard metacard, String dateAttribute) {
+    final Attribute date = metacard.getAttribute(dateAttribute);
+    if (date == null || !(date.getValue() instanceof Date)) {
+      return null;
+    }
+    return (Date) date.getValue();
+  }
+
+  /** A page of results and the position of the cursor after it */
+  static class Page {
+
+    private final List<Result> results;
+
+    private final Date lastModified;
+
+    private final String lastId;
+
+    Page(List<Result> results, Date lastModified, String lastId) {
+      this.results = Collections.unmodifiableList(new ArrayList<>(results));
+      this.lastModified = lastModified;
+      this.lastId = lastId;
+    }
+
+    List<Result> getResults() {
+      return results;
+    }
+
+    /** @return the latest modified date seen up to and including this page, or {@code null} */
+    Date getLastModified() {
+      return lastModified;
+    }
+
+    /** @return the greatest id of the records seen with exactly the last modified date */
+    String getLastId() {
+      return lastId;
+    }
+  }
+}
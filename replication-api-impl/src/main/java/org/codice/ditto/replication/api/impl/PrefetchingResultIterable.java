@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import ddf.catalog.data.Result;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.shiro.SecurityUtils;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.codice.ditto.replication.api.ReplicationException;
+import org.codice.ditto.replication.api.ReplicationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pages through the results of a query against a {@link ReplicationStore} with a {@link
+ * ModifiedDateCursor}, fetching the next pages in the background while the current page is being
+ * processed. At most {@code prefetchDepth} fetched pages are held waiting to be processed, so a
+ * slow consumer does not cause the whole result set to be loaded into memory.
+ *
+ * <p>Can only be iterated once and must be closed to stop the background fetching if the pages are
+ * not all consumed.
+ */
+class PrefetchingResultIterable implements Iterable<ModifiedDateCursor.Page>, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchingResultIterable.class);
+
+  static final int MAX_PREFETCH_DEPTH = 10;
+
+  /** Marks that there are no more pages */
+  private static final ModifiedDateCursor.Page END_OF_RESULTS =
+      new ModifiedDateCursor.Page(Collections.emptyList(), null, null);
+
+  private final ReplicationStore store;
+
+  private final ModifiedDateCursor cursor;
+
+  private final BlockingQueue<ModifiedDateCursor.Page> pages;
+
+  private final ExecutorService executor;
+
+  private volatile boolean closed;
+
+  private volatile Exception failure;
+
+  private boolean iterated;
+
+  /**
+   * @param store the store to query
+   * @param cursor the cursor used to query for each page. Only used by the background thread.
+   * @param prefetchDepth the number of pages to fetch ahead of the page being processed. Limited to
+   *     between 1 and {@link #MAX_PREFETCH_DEPTH}.
+   */
+  PrefetchingResultIterable(ReplicationStore store, ModifiedDateCursor cursor, int prefetchDepth) {
+    this.store = store;
+    this.cursor = cursor;
+    this.pages = new ArrayBlockingQueue<>(Math.min(MAX_PREFETCH_DEPTH, Math.max(1, prefetchDepth)));
+    this.executor =
+        Executors.newSingleThreadExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("replicationPrefetchThread"));
+  }
+
+  @Override
+  public synchronized Iterator<ModifiedDateCursor.Page> iterator() {
+    if (iterated) {
+      throw new IllegalStateException("Query results can only be iterated once");
+    }
+    iterated = true;
+    executor.execute(SecurityUtils.getSubject().associateWith(this::fetchPages));
+    return new PageIterator();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    executor.shutdownNow();
+    // make room in case the fetcher is waiting to add a page
+    pages.clear();
+  }
+
+  private void fetchPages() {
+    try {
+      while (!closed) {
+        final List<Result> results = store.query(cursor.nextPageRequest()).getResults();
+        if (!cursor.advance(results) && results.size() >= cursor.getPageSize()) {
+          throw new ReplicationException(
+              "Unable to page past query results from "
+                  + store.getRemoteName()
+                  + " that do not have a modified date");
+        }
+        if (!results.isEmpty()) {
+          pages.put(cursor.createPage(results));
+        }
+        if (results.size() < cursor.getPageSize()) {
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      LOGGER.trace("Interrupted while prefetching query results from {}", store.getRemoteName());
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      failure = e;
+    } finally {
+      try {
+        pages.put(END_OF_RESULTS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private class PageIterator implements Iterator<ModifiedDateCursor.Page> {
+
+    private ModifiedDateCursor.Page next;
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        next = takePage();
+      }
+      if (next == END_OF_RESULTS && failure != null) {
+        throw new ReplicationException(
+            "Failed to query for results from " + store.getRemoteName(), failure);
+      }
+      return next != END_OF_RESULTS;
+    }
+
+    @Override
+    public ModifiedDateCursor.Page next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more query results");
+      }
+      final ModifiedDateCursor.Page page = next;
+      next = null;
+      return page;
+    }
+
+    private ModifiedDateCursor.Page takePage() {
+      try {
+        return pages.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ReplicationException(
+            "Interrupted while waiting for query results from " + store.getRemoteName(), e);
+      }
+    }
+  }
+}
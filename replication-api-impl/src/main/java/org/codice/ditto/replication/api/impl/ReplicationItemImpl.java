@@ -31,6 +31,10 @@ public class ReplicationItemImpl implements ReplicationItem {
 
   private final String configurationId;
 
+  private final String resourceChecksum;
+
+  private final long resourceSize;
+
   private int failureCount;
 
   public ReplicationItemImpl(
@@ -51,6 +55,28 @@ public class ReplicationItemImpl implements ReplicationItem {
       String destination,
       String configId,
       int failureCount) {
+    this(
+        metacardId,
+        resourceModified,
+        metacardModified,
+        source,
+        destination,
+        configId,
+        null,
+        -1,
+        failureCount);
+  }
+
+  public ReplicationItemImpl(
+      String metacardId,
+      Date resourceModified,
+      Date metacardModified,
+      String source,
+      String destination,
+      String configId,
+      String resourceChecksum,
+      long resourceSize,
+      int failureCount) {
     this.metacardId = notBlank(metacardId);
     // TODO these dates don't matter for delete requests that fail. Need to make a way to
     // instantiate a failed ReplicationItem for failed deletes.
@@ -61,6 +87,8 @@ public class ReplicationItemImpl implements ReplicationItem {
     this.source = notBlank(source);
     this.destination = notBlank(destination);
     this.configurationId = configId;
+    this.resourceChecksum = resourceChecksum;
+    this.resourceSize = resourceSize;
     this.failureCount = failureCount;
   }
 
@@ -87,6 +115,16 @@ public class ReplicationItemImpl implements ReplicationItem {
     return metacardModified;
   }
 
+  @Override
+  public String getResourceChecksum() {
+    return resourceChecksum;
+  }
+
+  @Override
+  public long getResourceSize() {
+    return resourceSize;
+  }
+
   @Override
   public String getSource() {
     return source;
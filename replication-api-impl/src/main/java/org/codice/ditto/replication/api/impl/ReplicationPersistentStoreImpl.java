@@ -14,7 +14,11 @@
 package org.codice.ditto.replication.api.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,8 +26,11 @@ import java.util.stream.Collectors;
 import org.codice.ddf.persistence.PersistenceException;
 import org.codice.ddf.persistence.PersistentItem;
 import org.codice.ddf.persistence.PersistentStore;
+import org.codice.ditto.replication.api.Direction;
+import org.codice.ditto.replication.api.HighWaterMark;
 import org.codice.ditto.replication.api.ReplicationItem;
 import org.codice.ditto.replication.api.ReplicationPersistentStore;
+import org.codice.ditto.replication.api.SyncCheckpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,8 +53,41 @@ public class ReplicationPersistentStoreImpl implements ReplicationPersistentStor
 
   private static final String FAILURE_COUNT_KEY = "failure-count";
 
+  private static final String RESOURCE_CHECKSUM_KEY = "resource-checksum";
+
+  private static final String RESOURCE_SIZE_KEY = "resource-size";
+
   private static final String PERSISTENCE_TYPE = "replication_item";
 
+  private static final String HIGH_WATER_MARK_PERSISTENCE_TYPE = "replication_high_water_mark";
+
+  private static final String METACARD_ID_KEY = "metacard-id";
+
+  /**
+   * High-water marks used to be saved with every id at the modified date. Only used to recognize
+   * them when loading.
+   */
+  private static final String METACARD_IDS_KEY = "metacard-ids";
+
+  private static final String DELETED_ON_KEY = "deleted-on";
+
+  private static final String DELETED_ID_KEY = "deleted-id";
+
+  private static final String LAST_COMPLETE_RUN_START_KEY = "last-complete-run-start";
+
+  private static final String CHECKPOINT_PERSISTENCE_TYPE = "replication_checkpoint";
+
+  private static final String DIRECTION_KEY = "direction";
+
+  private static final String QUEUED_RUNS_PERSISTENCE_TYPE = "replication_queued_runs";
+
+  /** The queued runs are saved as a single item so their order is kept */
+  private static final String QUEUED_RUNS_ID = "queued-runs";
+
+  private static final String CONFIGURATION_IDS_KEY = "config-ids";
+
+  private static final String CONFIGURATION_ID_SEPARATOR = ",";
+
   private static final int DEFAULT_PAGE_SIZE = 1000;
 
   private static final int DEFAULT_START_INDEX = 0;
@@ -96,6 +136,51 @@ public class ReplicationPersistentStoreImpl implements ReplicationPersistentStor
     return Optional.of(mapToReplicationItem(matchingPersistentItems.get(0)));
   }
 
+  @Override
+  public Map<String, ReplicationItem> getItems(
+      Collection<String> ids, String source, String destination) {
+    if (ids.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    String idFilter =
+        ids
+            .stream()
+            .map(id -> String.format("'id' = '%s'", id))
+            .collect(Collectors.joining(" OR "));
+    String cqlFilter =
+        String.format(
+            "(%s) AND 'source' = '%s' AND 'destination' = '%s'", idFilter, source, destination);
+    List<Map<String, Object>> matchingPersistentItems;
+
+    try {
+      matchingPersistentItems =
+          persistentStore.get(PERSISTENCE_TYPE, cqlFilter, DEFAULT_START_INDEX, ids.size());
+    } catch (PersistenceException e) {
+      LOGGER.debug(
+          "failed to retrieve {} items with source: {}, and destination: {}",
+          ids.size(),
+          source,
+          destination);
+      return Collections.emptyMap();
+    }
+
+    Map<String, ReplicationItem> items = new HashMap<>();
+    for (Map<String, Object> persistentItem : matchingPersistentItems) {
+      ReplicationItem item = mapToReplicationItem(persistentItem);
+      if (items.put(item.getMetacardId(), item) != null) {
+        throw new IllegalStateException(
+            "Found multiple persistent items with id: "
+                + item.getMetacardId()
+                + ", source: "
+                + source
+                + ", and destination: "
+                + destination);
+      }
+    }
+    return items;
+  }
+
   @Override
   public List<ReplicationItem> getItemsForConfig(String configId, int startIndex, int pageSize)
       throws PersistenceException {
@@ -136,17 +221,16 @@ public class ReplicationPersistentStoreImpl implements ReplicationPersistentStor
   }
 
   @Override
-  public List<String> getFailureList(int maximumFailureCount, String source, String destination) {
+  public List<String> getFailureList(
+      int maximumFailureCount, String source, String destination, int startIndex, int pageSize) {
     List<String> failureList = new ArrayList<>();
     String cqlFilter =
         String.format(
             "'%s' > 0 AND '%s' < '%d' AND 'source' = '%s' AND 'destination' = '%s'",
             FAILURE_COUNT_KEY, FAILURE_COUNT_KEY, maximumFailureCount, source, destination);
     try {
-      // 50 (maxResults) is the batch size for failure retries. if left unspecified, the size will
-      // default to 10
       List<Map<String, Object>> failList =
-          persistentStore.get(PERSISTENCE_TYPE, cqlFilter, DEFAULT_START_INDEX, 50);
+          persistentStore.get(PERSISTENCE_TYPE, cqlFilter, startIndex, pageSize);
       for (Map<String, Object> failItem : failList) {
         ReplicationItem item = mapToReplicationItem(failItem);
         failureList.add(item.getMetacardId());
@@ -171,6 +255,214 @@ public class ReplicationPersistentStoreImpl implements ReplicationPersistentStor
     } while (itemsDeleted == DEFAULT_PAGE_SIZE);
   }
 
+  @Override
+  public Optional<HighWaterMark> getHighWaterMark(
+      String configId, String source, String destination) {
+    String cqlFilter =
+        String.format(
+            "'config-id' = '%s' AND 'source' = '%s' AND 'destination' = '%s'",
+            configId, source, destination);
+    List<Map<String, Object>> matchingPersistentItems;
+
+    try {
+      matchingPersistentItems = persistentStore.get(HIGH_WATER_MARK_PERSISTENCE_TYPE, cqlFilter);
+    } catch (PersistenceException e) {
+      LOGGER.debug(
+          "failed to retrieve high-water mark with config id: {}, source: {}, and destination: {}",
+          configId,
+          source,
+          destination);
+      return Optional.empty();
+    }
+
+    if (matchingPersistentItems == null || matchingPersistentItems.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(mapToHighWaterMark(matchingPersistentItems.get(0)));
+  }
+
+  @Override
+  public void saveHighWaterMark(HighWaterMark highWaterMark) {
+    try {
+      persistentStore.add(
+          HIGH_WATER_MARK_PERSISTENCE_TYPE, highWaterMarkToPersistentItem(highWaterMark));
+    } catch (PersistenceException e) {
+      LOGGER.error("error persisting high-water mark");
+    }
+  }
+
+  @Override
+  public void deleteHighWaterMarksForConfig(String configId) throws PersistenceException {
+    String cql = String.format("'config-id' = '%s'", configId);
+    int itemsDeleted;
+
+    do {
+      itemsDeleted =
+          persistentStore.delete(
+              HIGH_WATER_MARK_PERSISTENCE_TYPE, cql, DEFAULT_START_INDEX, DEFAULT_PAGE_SIZE);
+    } while (itemsDeleted == DEFAULT_PAGE_SIZE);
+  }
+
+  @Override
+  public Optional<SyncCheckpoint> getCheckpoint(String configId) {
+    String cqlFilter = String.format("'id' = '%s'", configId);
+    List<Map<String, Object>> matchingPersistentItems;
+
+    try {
+      matchingPersistentItems = persistentStore.get(CHECKPOINT_PERSISTENCE_TYPE, cqlFilter);
+    } catch (PersistenceException e) {
+      LOGGER.debug("failed to retrieve checkpoint with config id: {}", configId);
+      return Optional.empty();
+    }
+
+    if (matchingPersistentItems == null || matchingPersistentItems.isEmpty()) {
+      return Optional.empty();
+    }
+
+    Map<String, Object> attributes = PersistentItem.stripSuffixes(matchingPersistentItems.get(0));
+    return Optional.of(
+        new SyncCheckpointImpl(
+            (String) attributes.get(ID_KEY),
+            Direction.valueOf((String) attributes.get(DIRECTION_KEY))));
+  }
+
+  @Override
+  public void saveCheckpoint(SyncCheckpoint checkpoint) {
+    PersistentItem persistentItem = new PersistentItem();
+    persistentItem.addIdProperty(checkpoint.getConfigurationId());
+    persistentItem.addProperty(DIRECTION_KEY, checkpoint.getDirection().name());
+    try {
+      persistentStore.add(CHECKPOINT_PERSISTENCE_TYPE, persistentItem);
+    } catch (PersistenceException e) {
+      LOGGER.error("error persisting checkpoint");
+    }
+  }
+
+  @Override
+  public void deleteCheckpoint(String configId) {
+    String cqlFilter = String.format("'id' = '%s'", configId);
+    try {
+      persistentStore.delete(CHECKPOINT_PERSISTENCE_TYPE, cqlFilter);
+    } catch (PersistenceException e) {
+      LOGGER.error("error deleting checkpoint with config id: {}", configId);
+    }
+  }
+
+  @Override
+  public List<String> getQueuedRuns() {
+    String cqlFilter = String.format("'id' = '%s'", QUEUED_RUNS_ID);
+    List<Map<String, Object>> matchingPersistentItems;
+
+    try {
+      matchingPersistentItems = persistentStore.get(QUEUED_RUNS_PERSISTENCE_TYPE, cqlFilter);
+    } catch (PersistenceException e) {
+      LOGGER.debug("failed to retrieve queued runs");
+      return Collections.emptyList();
+    }
+
+    if (matchingPersistentItems == null || matchingPersistentItems.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Map<String, Object> attributes = PersistentItem.stripSuffixes(matchingPersistentItems.get(0));
+    final String configIds = (String) attributes.get(CONFIGURATION_IDS_KEY);
+    return configIds == null || configIds.isEmpty()
+        ? Collections.emptyList()
+        : Arrays.asList(configIds.split(CONFIGURATION_ID_SEPARATOR));
+  }
+
+  @Override
+  public void saveQueuedRuns(List<String> configIds) {
+    if (configIds.isEmpty()) {
+      deleteQueuedRuns();
+      return;
+    }
+
+    PersistentItem persistentItem = new PersistentItem();
+    persistentItem.addIdProperty(QUEUED_RUNS_ID);
+    persistentItem.addProperty(
+        CONFIGURATION_IDS_KEY, String.join(CONFIGURATION_ID_SEPARATOR, configIds));
+    try {
+      persistentStore.add(QUEUED_RUNS_PERSISTENCE_TYPE, persistentItem);
+    } catch (PersistenceException e) {
+      LOGGER.error("error persisting queued runs");
+    }
+  }
+
+  @Override
+  public void deleteQueuedRuns() {
+    String cqlFilter = String.format("'id' = '%s'", QUEUED_RUNS_ID);
+    try {
+      persistentStore.delete(QUEUED_RUNS_PERSISTENCE_TYPE, cqlFilter);
+    } catch (PersistenceException e) {
+      LOGGER.error("error deleting queued runs");
+    }
+  }
+
+  private PersistentItem highWaterMarkToPersistentItem(HighWaterMark highWaterMark) {
+    PersistentItem persistentItem = new PersistentItem();
+    // one high-water mark per config, source and destination, so saving replaces the previous one
+    persistentItem.addIdProperty(
+        String.join(
+            "_",
+            highWaterMark.getConfigurationId(),
+            highWaterMark.getSource(),
+            highWaterMark.getDestination()));
+    persistentItem.addProperty(CONFIGURATION_ID_KEY, highWaterMark.getConfigurationId());
+    persistentItem.addProperty(SOURCE_NAME_KEY, highWaterMark.getSource());
+    persistentItem.addProperty(DESTINATION_NAME_KEY, highWaterMark.getDestination());
+    if (highWaterMark.getMetacardModified() != null) {
+      persistentItem.addProperty(METACARD_MODIFIED_KEY, highWaterMark.getMetacardModified());
+    }
+    if (highWaterMark.getMetacardId() != null) {
+      persistentItem.addProperty(METACARD_ID_KEY, highWaterMark.getMetacardId());
+    }
+    if (highWaterMark.getDeletedOn() != null) {
+      persistentItem.addProperty(DELETED_ON_KEY, highWaterMark.getDeletedOn());
+    }
+    if (highWaterMark.getDeletedId() != null) {
+      persistentItem.addProperty(DELETED_ID_KEY, highWaterMark.getDeletedId());
+    }
+    if (highWaterMark.getLastCompleteRunStart() != null) {
+      persistentItem.addProperty(
+          LAST_COMPLETE_RUN_START_KEY, highWaterMark.getLastCompleteRunStart());
+    }
+
+    return persistentItem;
+  }
+
+  private HighWaterMark mapToHighWaterMark(Map<String, Object> persistedMap) {
+    Map<String, Object> attributes = PersistentItem.stripSuffixes(persistedMap);
+
+    final String configId = (String) attributes.get(CONFIGURATION_ID_KEY);
+    final String source = (String) attributes.get(SOURCE_NAME_KEY);
+    final String destination = (String) attributes.get(DESTINATION_NAME_KEY);
+    final Date metacardModified = (Date) attributes.get(METACARD_MODIFIED_KEY);
+    final Date deletedOn = (Date) attributes.get(DELETED_ON_KEY);
+    final String deletedId = (String) attributes.get(DELETED_ID_KEY);
+    final Date lastCompleteRunStart = (Date) attributes.get(LAST_COMPLETE_RUN_START_KEY);
+
+    String metacardId = (String) attributes.get(METACARD_ID_KEY);
+    if (metacardId == null && attributes.containsKey(METACARD_IDS_KEY)) {
+      // the old format didn't keep the records at the modified date in id order, so there is no
+      // single id to continue from. Those records are replicated again instead.
+      LOGGER.debug(
+          "Loading high-water mark for config {} saved in the old format from {}",
+          configId,
+          metacardModified);
+    }
+
+    return new HighWaterMarkImpl(
+        configId,
+        source,
+        destination,
+        metacardModified,
+        metacardId,
+        deletedOn,
+        deletedId,
+        lastCompleteRunStart);
+  }
+
   private PersistentItem replicationToPersistentItem(ReplicationItem replicationItem) {
     PersistentItem persistentItem = new PersistentItem();
     persistentItem.addIdProperty(replicationItem.getMetacardId());
@@ -180,6 +472,10 @@ public class ReplicationPersistentStoreImpl implements ReplicationPersistentStor
     persistentItem.addProperty(SOURCE_NAME_KEY, replicationItem.getSource());
     persistentItem.addProperty(DESTINATION_NAME_KEY, replicationItem.getDestination());
     persistentItem.addProperty(CONFIGURATION_ID_KEY, replicationItem.getConfigurationId());
+    if (replicationItem.getResourceChecksum() != null) {
+      persistentItem.addProperty(RESOURCE_CHECKSUM_KEY, replicationItem.getResourceChecksum());
+    }
+    persistentItem.addProperty(RESOURCE_SIZE_KEY, replicationItem.getResourceSize());
 
     return persistentItem;
   }
@@ -194,6 +490,9 @@ public class ReplicationPersistentStoreImpl implements ReplicationPersistentStor
     final String destination = (String) attributes.get(DESTINATION_NAME_KEY);
     final String configId = (String) attributes.get(CONFIGURATION_ID_KEY);
     final int failureCount = (int) attributes.get(FAILURE_COUNT_KEY);
+    final String resourceChecksum = (String) attributes.get(RESOURCE_CHECKSUM_KEY);
+    // items saved before resource sizes were recorded won't have one
+    final Long resourceSize = (Long) attributes.get(RESOURCE_SIZE_KEY);
 
     return new ReplicationItemImpl(
         metacardId,
@@ -202,6 +501,8 @@ public class ReplicationPersistentStoreImpl implements ReplicationPersistentStor
         source,
         destination,
         configId,
+        resourceChecksum,
+        resourceSize == null ? -1 : resourceSize,
         failureCount);
   }
 }
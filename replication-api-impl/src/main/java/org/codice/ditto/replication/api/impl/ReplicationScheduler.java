@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import ddf.security.Subject;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.codice.ddf.security.common.Security;
+import org.codice.ditto.replication.api.ReplicationStatus;
+import org.codice.ditto.replication.api.Replicator;
+import org.codice.ditto.replication.api.ReplicatorConfig;
+import org.codice.ditto.replication.api.ReplicatorConfigLoader;
+import org.codice.ditto.replication.api.ReplicatorHistory;
+import org.codice.ditto.replication.api.impl.data.SyncRequestImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Submits sync requests for the replication configs that have a schedule interval. Each run is
+ * scheduled an interval after the last one, give or take a random jitter so configs with the same
+ * interval drift apart instead of all hitting their sites at once. A run that comes due while the
+ * last run for the config is still queued or active is skipped.
+ *
+ * <p>When a config is first seen, such as after the system has been down, its next run is worked
+ * out from when it last ran. A config that missed one or more runs is run once, at a random point
+ * within the catch-up window rather than straight away, so a restart doesn't start every config at
+ * the same moment.
+ */
+public class ReplicationScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationScheduler.class);
+
+  private static final long CHECK_INTERVAL_SECONDS = 15;
+
+  private static final long CATCH_UP_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final int DEFAULT_JITTER_PERCENT = 10;
+
+  private static final int MAX_JITTER_PERCENT = 50;
+
+  private final ReplicatorConfigLoader configLoader;
+
+  private final Replicator replicator;
+
+  private final ReplicatorHistory history;
+
+  private final ScheduledExecutorService executor;
+
+  private final Random random = new Random();
+
+  /** When each scheduled config should next run, by config id. Only used by the executor thread. */
+  private final Map<String, NextRun> nextRuns = new HashMap<>();
+
+  private volatile int jitterPercent = DEFAULT_JITTER_PERCENT;
+
+  public ReplicationScheduler(
+      ReplicatorConfigLoader configLoader,
+      Replicator replicator,
+      ReplicatorHistory history,
+      ScheduledExecutorService executor) {
+    this.configLoader = notNull(configLoader);
+    this.replicator = notNull(replicator);
+    this.history = notNull(history);
+    this.executor = notNull(executor);
+  }
+
+  public void init() {
+    executor.scheduleWithFixedDelay(
+        this::runAsSystem, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Sets how much each scheduled run can be moved earlier or later, as a percentage of the config's
+   * interval. Values are limited to between 0 and {@value MAX_JITTER_PERCENT}.
+   */
+  public void setJitterPercent(int jitterPercent) {
+    this.jitterPercent = Math.min(MAX_JITTER_PERCENT, Math.max(0, jitterPercent));
+  }
+
+  private void runAsSystem() {
+    try {
+      final Security security = Security.getInstance();
+      final Subject systemSubject = security.runAsAdmin(security::getSystemSubject);
+      systemSubject.execute(this::submitDueRuns);
+    } catch (RuntimeException e) {
+      // an exception would cancel every later check
+      LOGGER.warn("Failed to schedule replication runs", e);
+    }
+  }
+
+  private void submitDueRuns() {
+    final long now = System.currentTimeMillis();
+    final Set<String> scheduledIds = new HashSet<>();
+    for (ReplicatorConfig config : configLoader.getAllConfigs()) {
+      final long interval = TimeUnit.SECONDS.toMillis(config.getScheduleInterval());
+      if (interval <= 0) {
+        continue;
+      }
+      scheduledIds.add(config.getId());
+
+      NextRun nextRun = nextRuns.get(config.getId());
+      // the interval may have been changed since the run was scheduled
+      if (nextRun == null || nextRun.getInterval() != interval) {
+        nextRun = new NextRun(getFirstRunTime(config, interval, now), interval);
+        nextRuns.put(config.getId(), nextRun);
+      }
+      if (now < nextRun.getTime()) {
+        continue;
+      }
+
+      submit(config);
+      nextRuns.put(config.getId(), new NextRun(now + addJitter(interval), interval));
+    }
+    nextRuns.keySet().retainAll(scheduledIds);
+  }
+
+  private void submit(ReplicatorConfig config) {
+    if (replicator.isPending(config.getId()) || replicator.isActive(config.getId())) {
+      LOGGER.debug(
+          "The last run for replication config {} hasn't finished. Skipping this run.",
+          config.getName());
+      return;
+    }
+
+    try {
+      LOGGER.debug("Submitting scheduled run for replication config {}", config.getName());
+      replicator.submitSyncRequest(
+          new SyncRequestImpl(config, new ReplicationStatus(config.getName())));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Works out when a config should next run from when it last started. A config that has never run
+   * or is overdue is run once within the catch-up window, no matter how many runs it missed.
+   */
+  private long getFirstRunTime(ReplicatorConfig config, long interval, long now) {
+    final Date lastStart =
+        history
+            .getReplicationEvents(config.getName())
+            .stream()
+            .map(ReplicationStatus::getStartTime)
+            .filter(Objects::nonNull)
+            .max(Date::compareTo)
+            .orElse(null);
+
+    if (lastStart != null && lastStart.getTime() + interval > now) {
+      return lastStart.getTime() + addJitter(interval);
+    }
+    final long window = Math.min(interval, CATCH_UP_WINDOW_MILLIS);
+    return now + (long) (random.nextDouble() * window);
+  }
+
+  private long addJitter(long interval) {
+    final double jitter = interval * (jitterPercent / 100.0) * (random.nextDouble() * 2 - 1);
+    return interval + (long) jitter;
+  }
+
+  /** When a config should next run and the interval in milliseconds that was worked out from */
+  private static class NextRun {
+
+    private final long time;
+
+    private final long interval;
+
+    NextRun(long time, long interval) {
+      this.time = time;
+      this.interval = interval;
+    }
+
+    long getTime() {
+      return time;
+    }
+
+    long getInterval() {
+      return interval;
+    }
+  }
+}
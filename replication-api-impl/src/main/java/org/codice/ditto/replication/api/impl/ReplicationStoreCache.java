@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.codice.ditto.replication.api.ReplicationException;
+import org.codice.ditto.replication.api.ReplicationStore;
+import org.codice.ditto.replication.api.ReplicatorStoreFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares the {@link ReplicationStore}s for remote systems between replication runs, so the
+ * capabilities and remote name of a system are only looked up once rather than on every run. Stores
+ * are keyed by URL and counted as they are acquired and released. A store that hasn't been used by
+ * any run for longer than the idle timeout is closed.
+ *
+ * <p>A store is checked to be available when it is created, and again when it is acquired if it
+ * hasn't been checked within the revalidation interval or a run using it has lost its connection. A
+ * store that is found to be unavailable is dropped from the cache and closed once the last run
+ * using it releases it.
+ */
+class ReplicationStoreCache implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationStoreCache.class);
+
+  private final ReplicatorStoreFactory storeFactory;
+
+  private final long idleTimeoutMillis;
+
+  private final long revalidateIntervalMillis;
+
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  /**
+   * @param storeFactory creates the stores for remote systems
+   * @param idleTimeout how long a store can go unused before it is closed
+   * @param revalidateInterval how long a store can be used before its availability is checked again
+   */
+  ReplicationStoreCache(
+      ReplicatorStoreFactory storeFactory,
+      long idleTimeout,
+      long revalidateInterval,
+      TimeUnit timeUnit) {
+    this.storeFactory = storeFactory;
+    this.idleTimeoutMillis = timeUnit.toMillis(idleTimeout);
+    this.revalidateIntervalMillis = timeUnit.toMillis(revalidateInterval);
+  }
+
+  /**
+   * Gets the store for a URL, creating it if there isn't one cached. The lease must be closed once
+   * the store is no longer being used.
+   *
+   * @throws ReplicationException if the store could not be created or is unavailable
+   */
+  Lease acquire(URL url) {
+    final Entry entry;
+    synchronized (this) {
+      closeIdleStores();
+      entry = entries.computeIfAbsent(url.toString(), key -> new Entry(url));
+      entry.references++;
+    }
+
+    try {
+      return new Lease(entry, entry.getStore());
+    } catch (RuntimeException e) {
+      release(entry);
+      throw e;
+    }
+  }
+
+  /** Closes every store that isn't being used. Stores in use are closed when they are released. */
+  @Override
+  public synchronized void close() {
+    final List<Entry> closing = new ArrayList<>(entries.values());
+    entries.clear();
+    for (Entry entry : closing) {
+      entry.discarded = true;
+      if (entry.references == 0) {
+        entry.closeStore();
+      }
+    }
+  }
+
+  private synchronized void release(Entry entry) {
+    entry.references--;
+    entry.lastReleased = System.currentTimeMillis();
+    if (entry.references == 0 && entry.discarded) {
+      entry.closeStore();
+    }
+    closeIdleStores();
+  }
+
+  private synchronized void discard(Entry entry) {
+    entry.discarded = true;
+    entries.remove(entry.key, entry);
+  }
+
+  private void closeIdleStores() {
+    final long now = System.currentTimeMillis();
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      final Entry entry = iterator.next();
+      if (entry.references == 0 && now - entry.lastReleased > idleTimeoutMillis) {
+        LOGGER.debug(
+            "Closing store for {} that has been idle for {} ms",
+            entry.key,
+            now - entry.lastReleased);
+        iterator.remove();
+        entry.discarded = true;
+        entry.closeStore();
+      }
+    }
+  }
+
+  /** The store for one URL, created the first time it is needed */
+  private class Entry {
+
+    private final URL url;
+
+    private final String key;
+
+    /** Only accessed while synchronized on the cache */
+    private int references;
+
+    /** Only accessed while synchronized on the cache */
+    private long lastReleased;
+
+    /** Only accessed while synchronized on the cache */
+    private boolean discarded;
+
+    private ReplicationStore store;
+
+    private volatile long lastValidated;
+
+    Entry(URL url) {
+      this.url = url;
+      this.key = url.toString();
+    }
+
+    /** Creates the store if it hasn't been yet, and checks it is available if it is due. */
+    synchronized ReplicationStore getStore() {
+      if (store == null) {
+        try {
+          store = storeFactory.createReplicatorStore(url);
+        } catch (Exception e) {
+          discard(this);
+          throw new ReplicationException("Error connecting to remote system at " + url, e);
+        }
+        lastValidated = 0;
+      }
+
+      if (System.currentTimeMillis() - lastValidated > revalidateIntervalMillis) {
+        if (!store.isAvailable()) {
+          discard(this);
+          throw new ReplicationException("System at " + url + " is currently unavailable");
+        }
+        lastValidated = System.currentTimeMillis();
+      }
+      return store;
+    }
+
+    synchronized void closeStore() {
+      if (store == null) {
+        return;
+      }
+      try {
+        store.close();
+      } catch (IOException | RuntimeException e) {
+        LOGGER.debug("Failed to close store for {}", url, e);
+      }
+      store = null;
+    }
+  }
+
+  /** A store acquired from the cache, which is released back to the cache when closed */
+  class Lease implements AutoCloseable {
+
+    private final Entry entry;
+
+    private final ReplicationStore store;
+
+    private boolean released;
+
+    private Lease(Entry entry, ReplicationStore store) {
+      this.entry = entry;
+      this.store = store;
+    }
+
+    ReplicationStore getStore() {
+      return store;
+    }
+
+    /** Has the store checked before it is next acquired. Used when a run loses its connection. */
+    void invalidate() {
+      entry.lastValidated = 0;
+    }
+
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        release(entry);
+      }
+    }
+  }
+}
@@ -110,6 +110,12 @@ public class ReplicatorHistoryImpl implements ReplicatorHistory {
         helper.getAttributeValueOrDefault(metacard, ReplicationHistory.PUSH_BYTES, 0L));
     status.setPullBytes(
         helper.getAttributeValueOrDefault(metacard, ReplicationHistory.PULL_BYTES, 0L));
+    status.setPushTransferTime(
+        helper.getAttributeValueOrDefault(metacard, ReplicationHistory.PUSH_TRANSFER_TIME, 0L));
+    status.setPullTransferTime(
+        helper.getAttributeValueOrDefault(metacard, ReplicationHistory.PULL_TRANSFER_TIME, 0L));
+    status.setRemoteLatency(
+        helper.getAttributeValueOrDefault(metacard, ReplicationHistory.REMOTE_LATENCY, -1L));
     status.setStatus(
         Status.valueOf(
             helper.getAttributeValueOrDefault(
@@ -133,6 +139,12 @@ public class ReplicatorHistoryImpl implements ReplicatorHistory {
         mcard, ReplicationHistory.PUSH_FAIL_COUNT, replicationStatus.getPushFailCount());
     helper.setIfPresent(mcard, ReplicationHistory.PULL_BYTES, replicationStatus.getPullBytes());
     helper.setIfPresent(mcard, ReplicationHistory.PUSH_BYTES, replicationStatus.getPushBytes());
+    helper.setIfPresent(
+        mcard, ReplicationHistory.PULL_TRANSFER_TIME, replicationStatus.getPullTransferTime());
+    helper.setIfPresent(
+        mcard, ReplicationHistory.PUSH_TRANSFER_TIME, replicationStatus.getPushTransferTime());
+    helper.setIfPresent(
+        mcard, ReplicationHistory.REMOTE_LATENCY, replicationStatus.getRemoteLatency());
     helper.setIfPresent(mcard, ReplicationHistory.STATUS, replicationStatus.getStatus().name());
     mcard.setId(replicationStatus.getId());
     mcard.setTags(Collections.singleton(ReplicationHistory.METACARD_TAG));
@@ -17,29 +17,42 @@ import static org.apache.commons.lang3.Validate.notNull;
 
 import ddf.catalog.filter.FilterBuilder;
 import ddf.security.Subject;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 import org.apache.commons.collections4.queue.UnmodifiableQueue;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.codice.ddf.security.common.Security;
 import org.codice.ditto.replication.api.Direction;
-import org.codice.ditto.replication.api.ReplicationException;
 import org.codice.ditto.replication.api.ReplicationPersistentStore;
 import org.codice.ditto.replication.api.ReplicationStatus;
 import org.codice.ditto.replication.api.ReplicationStore;
 import org.codice.ditto.replication.api.Replicator;
 import org.codice.ditto.replication.api.ReplicatorConfig;
+import org.codice.ditto.replication.api.ReplicatorConfigLoader;
 import org.codice.ditto.replication.api.ReplicatorHistory;
 import org.codice.ditto.replication.api.ReplicatorStoreFactory;
 import org.codice.ditto.replication.api.Status;
+import org.codice.ditto.replication.api.SyncCheckpoint;
 import org.codice.ditto.replication.api.SyncRequest;
+import org.codice.ditto.replication.api.impl.data.SyncRequestImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,7 +60,29 @@ public class ReplicatorImpl implements Replicator {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ReplicatorImpl.class);
 
-  private final ReplicatorStoreFactory replicatorStoreFactory;
+  private static final int DEFAULT_PREFETCH_DEPTH = 1;
+
+  private static final int DEFAULT_WORKER_COUNT = 4;
+
+  private static final int DEFAULT_MAX_RUNS_PER_SITE = 2;
+
+  private static final int DEFAULT_MAX_TRANSFERS_PER_SITE = 4;
+
+  private static final long DEFAULT_MAX_SPOOL_SIZE_MB = 10240;
+
+  private static final long DEFAULT_MAX_SPOOL_DISK_USAGE_MB = 51200;
+
+  private static final long SPOOL_CLEAN_UP_INTERVAL_MINUTES = 10;
+
+  private static final long DEFAULT_PRIORITY_AGING_INTERVAL = 30;
+
+  private static final long BYTES_PER_MB = 1024L * 1024L;
+
+  private static final long STORE_IDLE_TIMEOUT_MINUTES = 10;
+
+  private static final long STORE_REVALIDATE_INTERVAL_MINUTES = 1;
+
+  private final ReplicationStoreCache storeCache;
 
   private final ReplicationStore localStore;
 
@@ -55,54 +90,95 @@ public class ReplicatorImpl implements Replicator {
 
   private final ReplicationPersistentStore persistentStore;
 
+  private final ReplicatorConfigLoader configLoader;
+
   private final ExecutorService executor;
 
+  /** Executes the sync requests taken from the queue by {@link #executor} */
+  private final ThreadPoolExecutor workers =
+      new ThreadPoolExecutor(
+          DEFAULT_WORKER_COUNT,
+          DEFAULT_WORKER_COUNT,
+          0L,
+          TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(),
+          StandardThreadFactoryBuilder.newThreadFactory("replicatorWorkerThread"));
+
+  private final SiteLimits siteLimits =
+      new SiteLimits(DEFAULT_MAX_RUNS_PER_SITE, DEFAULT_MAX_TRANSFERS_PER_SITE);
+
+  /** The most sync requests to execute at once */
+  private volatile int workerCount = DEFAULT_WORKER_COUNT;
+
   private final FilterBuilder builder;
 
-  /** Does not contain duplicates */
-  private final BlockingQueue<SyncRequest> pendingSyncRequests = new LinkedBlockingQueue<>();
+  private final ResourceSpool resourceSpool =
+      new ResourceSpool(
+          ResourceSpool.getDefaultDirectory(),
+          DEFAULT_MAX_SPOOL_SIZE_MB * BYTES_PER_MB,
+          DEFAULT_MAX_SPOOL_DISK_USAGE_MB * BYTES_PER_MB);
+
+  /** Periodically cleans up the {@link #resourceSpool} */
+  private final ScheduledExecutorService spoolCleaner =
+      Executors.newSingleThreadScheduledExecutor(
+          StandardThreadFactoryBuilder.newThreadFactory("replicationSpoolCleanerThread"));
+
+  /** Number of change set pages to fetch ahead of the page being replicated */
+  private volatile int prefetchDepth = DEFAULT_PREFETCH_DEPTH;
+
+  private final SyncRequestQueue syncRequests =
+      new SyncRequestQueue(DEFAULT_PRIORITY_AGING_INTERVAL, TimeUnit.SECONDS);
 
-  /** Does not contain duplicates */
-  private final BlockingQueue<SyncRequest> activeSyncRequests = new LinkedBlockingQueue<>();
+  /** The ids of the configs that have been paused */
+  private final Set<String> pausedConfigs = ConcurrentHashMap.newKeySet();
+
+  /** The controls of the runs that are executing, by config id */
+  private final Map<String, RunControl> runControls = new ConcurrentHashMap<>();
+
+  /** Set once the replicator starts shutting down, so runs that are starting stop straight away */
+  private volatile boolean shuttingDown;
 
   public ReplicatorImpl(
       ReplicatorStoreFactory replicatorStoreFactory,
       ReplicationStore localStore,
       ReplicatorHistory history,
       ReplicationPersistentStore persistentStore,
+      ReplicatorConfigLoader configLoader,
       ExecutorService executor,
       FilterBuilder builder) {
-    this.replicatorStoreFactory = notNull(replicatorStoreFactory);
+    this.storeCache =
+        new ReplicationStoreCache(
+            notNull(replicatorStoreFactory),
+            STORE_IDLE_TIMEOUT_MINUTES,
+            STORE_REVALIDATE_INTERVAL_MINUTES,
+            TimeUnit.MINUTES);
     this.localStore = notNull(localStore);
     this.history = notNull(history);
     this.persistentStore = notNull(persistentStore);
+    this.configLoader = notNull(configLoader);
     this.executor = notNull(executor);
     this.builder = notNull(builder);
   }
 
   public void init() {
+    spoolCleaner.scheduleWithFixedDelay(
+        resourceSpool::cleanUp, 0, SPOOL_CLEAN_UP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+
     LOGGER.trace("Configuring the single-thread scheduler to execute sync requests from the queue");
 
     executor.execute(
         () -> {
-          while (true) {
+          resumeQueuedRuns();
+          while (!Thread.currentThread().isInterrupted()) {
             try {
-              // wait for something to be available in the queue and take it
-              final SyncRequest syncRequest = pendingSyncRequests.take();
+              // wait for a request that can be executed and take it, marking it as active
+              final SyncRequest syncRequest = takeNextSyncRequest();
               LOGGER.trace(
-                  "Just took sync request {} from the pendingSyncRequests queue. There are {} pending sync requests now in the queue.",
+                  "Just took sync request {} from the pending sync requests queue. There are {} pending sync requests now in the queue.",
                   syncRequest,
-                  pendingSyncRequests.size());
+                  syncRequests.pendingCount());
 
-              if (activeSyncRequests.contains(syncRequest)) { // TODO improve comparing syncRequests
-                LOGGER.debug(
-                    "activeSyncRequests already contains sync request {}. Not executing again.",
-                    syncRequest);
-              } else {
-                LOGGER.trace("Marking sync request {} as active", syncRequest);
-                activeSyncRequests.put(syncRequest);
-                executeSyncRequest(syncRequest);
-              }
+              workers.execute(() -> executeOnWorker(syncRequest));
             } catch (InterruptedException e) {
               LOGGER.trace("InterruptedException in executor. This is expected during shutdown.");
               Thread.currentThread().interrupt();
@@ -114,6 +190,73 @@ public class ReplicatorImpl implements Replicator {
         "Successfully configured the single-thread scheduler to execute sync requests from the queue");
   }
 
+  /**
+   * Queues up the runs that were waiting or still running when the replicator last shut down. Runs
+   * that were stopped part way pick up from their saved progress.
+   */
+  private void resumeQueuedRuns() {
+    final List<String> configIds = persistentStore.getQueuedRuns();
+    if (configIds.isEmpty()) {
+      return;
+    }
+
+    try {
+      final Security security = Security.getInstance();
+      final Subject systemSubject = security.runAsAdmin(security::getSystemSubject);
+      systemSubject.execute(
+          () -> {
+            final Map<String, ReplicatorConfig> configs =
+                configLoader
+                    .getAllConfigs()
+                    .stream()
+                    .collect(Collectors.toMap(ReplicatorConfig::getId, Function.identity()));
+
+            for (String configId : configIds) {
+              final ReplicatorConfig config = configs.get(configId);
+              if (config == null) {
+                LOGGER.debug(
+                    "Replication config {} no longer exists. Not resuming its run.", configId);
+              } else {
+                LOGGER.debug("Resuming the queued run for replication config {}", config.getName());
+                syncRequests.submit(
+                    new SyncRequestImpl(config, new ReplicationStatus(config.getName())));
+              }
+            }
+          });
+      persistentStore.deleteQueuedRuns();
+    } catch (RuntimeException e) {
+      // the runs stay saved so they can be resumed after the next restart
+      LOGGER.warn("Failed to resume the replication runs that were queued at shutdown", e);
+    }
+  }
+
+  /**
+   * Waits for the oldest pending sync request that can be executed, and takes it from the queue
+   * once a run has been started against its site. Requests stay in the queue while every worker is
+   * busy, their config is already active or paused, or their site is already running as much as it
+   * is allowed, so a slow site never ties up a worker that other sites could use.
+   */
+  private SyncRequest takeNextSyncRequest() throws InterruptedException {
+    return syncRequests.take(
+        () -> workerCount,
+        syncRequest ->
+            !pausedConfigs.contains(syncRequest.getConfig().getId())
+                && siteLimits.getSite(syncRequest.getConfig().getUrl()).tryAcquireRun());
+  }
+
+  private void executeOnWorker(SyncRequest syncRequest) {
+    try {
+      executeSyncRequest(syncRequest);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to execute sync request {}", syncRequest, e);
+      // the request may have failed before it could be completed
+      syncRequests.complete(syncRequest);
+    } finally {
+      siteLimits.getSite(syncRequest.getConfig().getUrl()).releaseRun();
+      syncRequests.signal();
+    }
+  }
+
   private void executeSyncRequest(final SyncRequest syncRequest) {
     final Security security = Security.getInstance();
     final Subject systemSubject = security.runAsAdmin(security::getSystemSubject);
@@ -125,10 +268,17 @@ public class ReplicatorImpl implements Replicator {
           status.markStartTime();
 
           ReplicatorConfig config = syncRequest.getConfig();
-          ReplicationStore store;
+          final SiteLimits.Site site = siteLimits.getSite(config.getUrl());
+          final RunControl control =
+              new RunControl(getDeadline(config), () -> pausedConfigs.contains(config.getId()));
+          runControls.put(config.getId(), control);
+          if (shuttingDown) {
+            control.stop();
+          }
+          ReplicationStoreCache.Lease lease;
 
           try {
-            store = getStoreForConfig(config);
+            lease = storeCache.acquire(config.getUrl());
           } catch (Exception e) {
             final Status connectionUnavailable = Status.CONNECTION_UNAVAILABLE;
             LOGGER.warn(
@@ -137,22 +287,54 @@ public class ReplicatorImpl implements Replicator {
                 connectionUnavailable,
                 e);
             status.setStatus(connectionUnavailable);
+            runControls.remove(config.getId(), control);
             completeActiveSyncRequest(syncRequest, status);
             return;
           }
-          try (ReplicationStore remoteStore = store) {
+          try (ReplicationStoreCache.Lease remoteLease = lease) {
+            final ReplicationStore remoteStore = remoteLease.getStore();
+            status.setRemoteLatency(remoteStore.getLatency());
+            final Direction interruptedDirection =
+                persistentStore
+                    .getCheckpoint(config.getId())
+                    .map(SyncCheckpoint::getDirection)
+                    .orElse(null);
+            if (interruptedDirection != null) {
+              LOGGER.debug(
+                  "Resuming replication for config {} where it left off during {}",
+                  config.getName(),
+                  interruptedDirection);
+            }
+
+            // pulling already finished if the last run was interrupted while pushing
+            final boolean pullFinished =
+                Direction.BOTH.equals(config.getDirection())
+                    && Direction.PUSH.equals(interruptedDirection);
+
             Status pullStatus = Status.SUCCESS;
-            if (Direction.PULL.equals(config.getDirection())
-                || Direction.BOTH.equals(config.getDirection())) {
+            if (!pullFinished
+                && (Direction.PULL.equals(config.getDirection())
+                    || Direction.BOTH.equals(config.getDirection()))) {
               status.setStatus(Status.PULL_IN_PROGRESS);
               SyncResponse response =
                   SyncHelper.performSync(
-                      remoteStore, localStore, config, persistentStore, history, builder);
+                      remoteStore,
+                      localStore,
+                      config,
+                      persistentStore,
+                      history,
+                      builder,
+                      prefetchDepth,
+                      resourceSpool,
+                      site,
+                      control);
               status.setPullCount(response.getItemsReplicated());
               status.setPullFailCount(response.getItemsFailed());
               status.setPullBytes(response.getBytesTransferred());
+              status.setPullTransferTime(response.getTransferTime());
               pullStatus = response.getStatus();
               status.setStatus(pullStatus);
+              saveCheckpointIfInterrupted(config, Direction.PULL, pullStatus);
             }
 
             if (pullStatus.equals(Status.SUCCESS)
@@ -161,14 +343,34 @@ public class ReplicatorImpl implements Replicator {
               status.setStatus(Status.PUSH_IN_PROGRESS);
               SyncResponse response =
                   SyncHelper.performSync(
-                      localStore, remoteStore, config, persistentStore, history, builder);
+                      localStore,
+                      remoteStore,
+                      config,
+                      persistentStore,
+                      history,
+                      builder,
+                      prefetchDepth,
+                      resourceSpool,
+                      site,
+                      control);
               status.setPushCount(response.getItemsReplicated());
               status.setPushFailCount(response.getItemsFailed());
               status.setPushBytes(response.getBytesTransferred());
+              status.setPushTransferTime(response.getTransferTime());
               status.setStatus(response.getStatus());
+              saveCheckpointIfInterrupted(config, Direction.PUSH, response.getStatus());
+            }
+
+            if (interruptedDirection != null && Status.SUCCESS.equals(status.getStatus())) {
+              persistentStore.deleteCheckpoint(config.getId());
+            }
+
+            if (Status.CONNECTION_LOST.equals(status.getStatus())) {
+              remoteLease.invalidate();
             }
 
           } catch (Exception e) {
+            lease.invalidate();
             final Status failureStatus = Status.FAILURE;
             LOGGER.warn(
                 "Error getting store for config {}. Setting status to {}",
@@ -177,23 +379,70 @@ public class ReplicatorImpl implements Replicator {
                 e);
             status.setStatus(failureStatus);
           } finally {
+            runControls.remove(config.getId(), control);
+            // requeue before completing, so there is never a moment the config is neither pending
+            // nor active for a shutdown to miss
+            if (Status.PARTIAL.equals(status.getStatus())) {
+              requeue(config);
+            }
             completeActiveSyncRequest(syncRequest, status);
           }
         });
   }
 
+  /** @return when a run of the config that starts now should stop, or never if it isn't limited */
+  private long getDeadline(ReplicatorConfig config) {
+    if (config.getMaxRunDuration() <= 0) {
+      return Long.MAX_VALUE;
+    }
+    return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(config.getMaxRunDuration());
+  }
+
+  /**
+   * Submits a new run for a config whose last run stopped at its maximum run duration. It goes to
+   * the back of the queue so the other pending configs get a turn first.
+   */
+  private void requeue(ReplicatorConfig config) {
+    LOGGER.debug("Queueing another run to continue replication for config {}", config.getName());
+    syncRequests.submit(new SyncRequestImpl(config, new ReplicationStatus(config.getName())));
+  }
+
+  /**
+   * Saves a checkpoint if replicating in the given direction was cut short, so the next run for the
+   * config can pick up where this one left off.
+   */
+  private void saveCheckpointIfInterrupted(
+      ReplicatorConfig config, Direction direction, Status status) {
+    if (Status.CONNECTION_LOST.equals(status)
+        || Status.PARTIAL.equals(status)
+        || Status.CANCELED.equals(status)) {
+      LOGGER.debug("Saving a checkpoint for config {} during {}", config.getName(), direction);
+      persistentStore.saveCheckpoint(new SyncCheckpointImpl(config.getId(), direction));
+    }
+  }
+
   private void completeActiveSyncRequest(SyncRequest syncRequest, ReplicationStatus status) {
     status.setDuration();
     LOGGER.trace("Removing sync request {} from the active queue", syncRequest);
-    if (!activeSyncRequests.remove(syncRequest)) {
-      LOGGER.debug("Failed to remove sync request {} from the active queue", syncRequest);
-    }
+    syncRequests.complete(syncRequest);
     LOGGER.trace("Adding replication event to history: {}", status);
     history.addReplicationEvent(status);
     LOGGER.trace("Successfully added replication event to history: {}", status);
   }
 
+  /**
+   * Stops every active run at its next item and saves the runs that are still queued, so they
+   * continue where they left off once the replicator starts again. Runs that are stopped save their
+   * progress the same way as runs that reach their maximum run duration.
+   */
   public void cleanUp() {
+    LOGGER.trace(
+        "Shutting down now the single-thread scheduler that executes sync requests from the queue");
+    executor.shutdownNow();
+
+    shuttingDown = true;
+    runControls.values().forEach(RunControl::stop);
+
     final RetryPolicy retryPolicy =
         new RetryPolicy()
             .retryWhen(false)
@@ -202,61 +451,187 @@ public class ReplicatorImpl implements Replicator {
 
     Failsafe.with(retryPolicy)
         .onSuccess(
-            isEmpty ->
-                LOGGER.trace(
-                    "Successfully waited for all pending or active sync requests to be completed"))
+            isStopped -> LOGGER.trace("Successfully waited for all active sync requests to stop"))
         .onRetry(
-            isEmpty ->
+            isStopped ->
                 LOGGER.debug(
-                    "There are currently {} pending and {} active sync requests. Waiting another second for all sync requests to be completed.",
-                    pendingSyncRequests.size(),
-                    activeSyncRequests.size()))
+                    "There are currently {} active sync requests. Waiting another second for them to stop.",
+                    syncRequests.activeCount()))
         .onFailure(
-            isEmpty ->
+            isStopped ->
                 LOGGER.debug(
-                    "There are currently {} pending and {} active sync requests, but the timeout was reached for waiting for all sync requests to be completed.",
-                    pendingSyncRequests.size(),
-                    activeSyncRequests.size()))
-        .get(() -> pendingSyncRequests.isEmpty() && activeSyncRequests.isEmpty());
+                    "There are currently {} active sync requests, but the timeout was reached for waiting for them to stop.",
+                    syncRequests.activeCount()))
+        .get(() -> syncRequests.activeCount() == 0);
 
-    LOGGER.trace(
-        "Shutting down now the single-thread scheduler that executes sync requests from the queue");
-    executor.shutdownNow();
+    workers.shutdownNow();
+    spoolCleaner.shutdownNow();
     LOGGER.trace("Successfully shut down replicator thread pool and scheduler");
+
+    saveQueuedRuns();
+    storeCache.close();
+  }
+
+  /**
+   * Saves the configs of the runs that are pending, and of any that didn't stop in time, so they
+   * can be run again after a restart. Runs that didn't stop in time redo their work since their
+   * last saved progress.
+   */
+  private void saveQueuedRuns() {
+    final Set<String> configIds = new LinkedHashSet<>();
+    Stream.concat(syncRequests.getActive().stream(), syncRequests.getPending().stream())
+        .map(syncRequest -> syncRequest.getConfig().getId())
+        .filter(Objects::nonNull)
+        .forEach(configIds::add);
+
+    LOGGER.debug("Saving {} queued sync requests to run after a restart", configIds.size());
+    persistentStore.saveQueuedRuns(new ArrayList<>(configIds));
   }
 
   @Override
   public void submitSyncRequest(final SyncRequest syncRequest) throws InterruptedException {
     LOGGER.trace("Submitting sync request for name = {}", syncRequest.getConfig().getName());
-    if (pendingSyncRequests.contains(syncRequest)) { // TODO improve comparing syncRequests
+    if (!syncRequests.submit(syncRequest)) {
       LOGGER.debug(
-          "The pendingSyncRequests already contains sync request {}. Not adding again.",
+          "There is already a pending sync request for config {}. Not adding {} again.",
+          syncRequest.getConfig().getName(),
           syncRequest);
-    } else {
-      pendingSyncRequests.put(syncRequest);
     }
   }
 
   @Override
   public Queue<SyncRequest> getPendingSyncRequests() {
-    return UnmodifiableQueue.unmodifiableQueue(pendingSyncRequests);
+    return UnmodifiableQueue.unmodifiableQueue(syncRequests.getPending());
   }
 
   @Override
   public Set<SyncRequest> getActiveSyncRequests() {
-    return Collections.unmodifiableSet(new HashSet<>(activeSyncRequests));
+    return Collections.unmodifiableSet(syncRequests.getActive());
   }
 
-  private ReplicationStore getStoreForConfig(ReplicatorConfig config) {
-    ReplicationStore store;
-    try {
-      store = replicatorStoreFactory.createReplicatorStore(config.getUrl());
-    } catch (Exception e) {
-      throw new ReplicationException("Error connecting to remote system at " + config.getUrl(), e);
+  @Override
+  public boolean isPending(String configId) {
+    return syncRequests.isPending(configId);
+  }
+
+  @Override
+  public boolean isActive(String configId) {
+    return syncRequests.isActive(configId);
+  }
+
+  @Override
+  public boolean cancel(String configId) {
+    final SyncRequest canceledRequest = syncRequests.cancel(configId);
+    if (canceledRequest != null) {
+      LOGGER.debug("Canceled pending sync request {}", canceledRequest);
+    }
+
+    final RunControl control = runControls.get(configId);
+    if (control != null) {
+      LOGGER.debug("Canceling the active sync request for config {}", configId);
+      control.cancel();
     }
-    if (!store.isAvailable()) {
-      throw new ReplicationException("System at " + config.getUrl() + " is currently unavailable");
+    return canceledRequest != null || control != null;
+  }
+
+  @Override
+  public boolean pause(String configId) {
+    LOGGER.debug("Pausing replication for config {}", configId);
+    return pausedConfigs.add(configId);
+  }
+
+  @Override
+  public boolean resume(String configId) {
+    if (!pausedConfigs.remove(configId)) {
+      return false;
+    }
+
+    LOGGER.debug("Resuming replication for config {}", configId);
+    final RunControl control = runControls.get(configId);
+    if (control != null) {
+      control.wake();
+    }
+    syncRequests.signal();
+    return true;
+  }
+
+  @Override
+  public boolean isPaused(String configId) {
+    return pausedConfigs.contains(configId);
+  }
+
+  /**
+   * Sets the number of change set pages that will be fetched ahead of the page being replicated.
+   * Values are limited to between 1 and {@value PrefetchingResultIterable#MAX_PREFETCH_DEPTH}.
+   */
+  public void setPrefetchDepth(int prefetchDepth) {
+    final int depth =
+        Math.min(PrefetchingResultIterable.MAX_PREFETCH_DEPTH, Math.max(1, prefetchDepth));
+    if (depth != prefetchDepth) {
+      LOGGER.debug("Prefetch depth {} is out of range. Using {} instead.", prefetchDepth, depth);
     }
-    return store;
+    this.prefetchDepth = depth;
+  }
+
+  /**
+   * Sets the most sync requests that will be executed at once. Sync requests for the same config
+   * are never executed at the same time. Values less than 1 are treated as 1.
+   */
+  public void setWorkerCount(int workerCount) {
+    final int count = Math.max(1, workerCount);
+    synchronized (workers) {
+      // the maximum pool size can never be less than the core pool size
+      if (count > workers.getMaximumPoolSize()) {
+        workers.setMaximumPoolSize(count);
+        workers.setCorePoolSize(count);
+      } else {
+        workers.setCorePoolSize(count);
+        workers.setMaximumPoolSize(count);
+      }
+      this.workerCount = count;
+    }
+    syncRequests.signal();
+  }
+
+  /**
+   * Sets the most runs against one remote site at once, shared by every config for the site. Values
+   * less than 1 are treated as 1.
+   */
+  public void setMaxRunsPerSite(int maxRunsPerSite) {
+    siteLimits.setMaxRuns(maxRunsPerSite);
+    syncRequests.signal();
+  }
+
+  /**
+   * Sets the most resource transfers with one remote site at once, shared by every run against the
+   * site. Values less than 1 are treated as 1.
+   */
+  public void setMaxTransfersPerSite(int maxTransfersPerSite) {
+    siteLimits.setMaxTransfers(maxTransfersPerSite);
+  }
+
+  /**
+   * Sets the number of seconds a pending sync request waits to gain one level of priority, so low
+   * priority requests are not held back forever by higher priority ones.
+   */
+  public void setPriorityAgingInterval(long priorityAgingInterval) {
+    syncRequests.setAgingInterval(priorityAgingInterval, TimeUnit.SECONDS);
+    syncRequests.signal();
+  }
+
+  /**
+   * Sets the size in megabytes of the largest resource that will be spooled to disk while it is
+   * replicated. Larger resources are streamed straight through. A negative value disables spooling.
+   */
+  public void setMaxSpoolSize(long maxSpoolSize) {
+    resourceSpool.setMaxSpoolSize(maxSpoolSize < 0 ? -1 : maxSpoolSize * BYTES_PER_MB);
+  }
+
+  /**
+   * Sets the most disk space in megabytes that spooled resources can take up in total. Past that,
+   * the least recently used spooled resources are deleted. A negative value removes the limit.
+   */
+  public void setMaxSpoolDiskUsage(long maxSpoolDiskUsage) {
+    resourceSpool.setMaxTotalSize(maxSpoolDiskUsage < 0 ? -1 : maxSpoolDiskUsage * BYTES_PER_MB);
   }
 }
@@ -77,6 +77,10 @@ public class ReplicatorStoreFactoryImpl implements ReplicatorStoreFactory {
 
   private ClientFactoryFactory clientFactoryFactory;
 
+  private int clientPoolSize = HybridStore.DEFAULT_CLIENT_POOL_SIZE;
+
+  private long clientIdleTimeout = HybridStore.DEFAULT_CLIENT_IDLE_TIMEOUT_SECONDS;
+
   public ReplicationStore createReplicatorStore(URL url) {
     CswSourceConfiguration cswConfiguration = new CswSourceConfiguration(encryptionService);
     cswConfiguration.setCswUrl(url.toString() + "/services/csw");
@@ -109,6 +113,8 @@ public class ReplicatorStoreFactoryImpl implements ReplicatorStoreFactory {
     hybridStore.setSecurityManager(securityManager);
     hybridStore.setSchemaTransformerManager(metacardTransformerManager);
     hybridStore.setCswTransactionWriter(cswTransactionWriter);
+    hybridStore.setClientPoolSize(clientPoolSize);
+    hybridStore.setClientIdleTimeout(clientIdleTimeout);
     hybridStore.init();
 
     return hybridStore;
@@ -153,4 +159,20 @@ public class ReplicatorStoreFactoryImpl implements ReplicatorStoreFactory {
   public void setClientFactoryFactory(ClientFactoryFactory clientFactoryFactory) {
     this.clientFactoryFactory = clientFactoryFactory;
   }
+
+  /**
+   * Sets the most REST connections each store keeps open between requests. Applies to stores
+   * created after it is set.
+   */
+  public void setClientPoolSize(int clientPoolSize) {
+    this.clientPoolSize = clientPoolSize;
+  }
+
+  /**
+   * Sets how long in seconds a store's REST connection can go unused before it is closed. Applies
+   * to stores created after it is set.
+   */
+  public void setClientIdleTimeout(long clientIdleTimeout) {
+    this.clientIdleTimeout = clientIdleTimeout;
+  }
 }
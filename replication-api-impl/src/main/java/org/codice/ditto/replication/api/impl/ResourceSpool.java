@@ -0,0 +1,428 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.hash.Hashing;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.operation.ResourceRequest;
+import ddf.catalog.operation.ResourceResponse;
+import ddf.catalog.resource.Resource;
+import ddf.catalog.resource.ResourceNotFoundException;
+import ddf.catalog.resource.ResourceNotSupportedException;
+import ddf.catalog.source.IngestException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.codice.ditto.replication.api.ReplicationStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the {@link SpooledResource}s that resources are read through while they are sent to a
+ * destination. A resource is copied to a spool file as it is read, so it can be read again without
+ * downloading it again. A download that is cut off part way is resumed from where it left off with
+ * a request that skips the bytes already downloaded, both while the resource is being read and on
+ * the next attempt to replicate the metacard. The spool files are kept until the resource has been
+ * sent, so a failed upload doesn't need to download the resource again.
+ *
+ * <p>Spool files are named after the source, destination, metacard and version of the resource, so
+ * bytes from a resource that has since changed are never resumed. Files that haven't been touched
+ * in {@value #MAX_FILE_AGE_DAYS} days are assumed to be abandoned and are deleted, as are the least
+ * recently used files once the spool takes up more than its total size limit. The files of a
+ * resource that is open are never deleted this way.
+ */
+class ResourceSpool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResourceSpool.class);
+
+  private static final long MAX_FILE_AGE_DAYS = 7;
+
+  private static final String PARTIAL_SUFFIX = ".part";
+
+  private static final String PROPERTIES_SUFFIX = ".properties";
+
+  private static final String MIME_TYPE_KEY = "mime-type";
+
+  private static final String NAME_KEY = "name";
+
+  private final Path directory;
+
+  /** The largest resource in bytes that will be spooled */
+  private volatile long maxSpoolSize;
+
+  /** The most bytes the spool files can take up in total before the oldest are deleted */
+  private volatile long maxTotalSize;
+
+  /**
+   * The keys of the resources that are open, counted once for each time they were opened. Guarded
+   * by this spool, so a resource can't be opened part way through {@link #cleanUp()}.
+   */
+  private final Multiset<String> openKeys = HashMultiset.create();
+
+  /** @param maxTotalSize the most bytes the spool files can take up in total, or -1 for no limit */
+  ResourceSpool(Path directory, long maxSpoolSize, long maxTotalSize) {
+    this.directory = directory;
+    this.maxSpoolSize = maxSpoolSize;
+    this.maxTotalSize = maxTotalSize;
+  }
+
+  /** @return the spool directory under the {@code ddf.home} data directory */
+  static Path getDefaultDirectory() {
+    return Paths.get(
+        System.getProperty("ddf.home", System.getProperty("java.io.tmpdir")),
+        "data",
+        "replication",
+        "spool");
+  }
+
+  /**
+   * Sets the largest resource in bytes that will be spooled. Larger resources are streamed straight
+   * from the source to the destination to save writing them to disk, but can only be resumed while
+   * they are being read.
+   */
+  void setMaxSpoolSize(long maxSpoolSize) {
+    this.maxSpoolSize = maxSpoolSize;
+  }
+
+  /**
+   * Sets the most bytes the spool files can take up in total. Past that, the least recently used
+   * spooled resources are deleted the next time the spool is cleaned up. A negative value removes
+   * the limit.
+   */
+  void setMaxTotalSize(long maxTotalSize) {
+    this.maxTotalSize = maxTotalSize;
+  }
+
+  /**
+   * Deletes the spooled resources that haven't been used in {@value #MAX_FILE_AGE_DAYS} days, and
+   * then the least recently used ones until the spool is within its total size limit. The files of
+   * resources that are open are left alone, and resources can't be opened until this is done.
+   */
+  synchronized void cleanUp() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+
+    final Map<String, SpooledFiles> spooled = new HashMap<>();
+    long totalSize = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        final long size;
+        final long lastUsed;
+        try {
+          size = Files.size(file);
+          lastUsed = Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+          // the file was most likely released while listing the directory
+          continue;
+        }
+        totalSize += size;
+        final String key = getKey(file);
+        if (!openKeys.contains(key)) {
+          spooled.computeIfAbsent(key, k -> new SpooledFiles()).add(file, size, lastUsed);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Failed to list the spool files in {}", directory, e);
+      return;
+    }
+
+    final long expiry = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_FILE_AGE_DAYS);
+    final long limit = maxTotalSize;
+    final List<SpooledFiles> oldestFirst = new ArrayList<>(spooled.values());
+    oldestFirst.sort(Comparator.comparingLong(SpooledFiles::getLastUsed));
+    for (SpooledFiles files : oldestFirst) {
+      if (files.getLastUsed() < expiry) {
+        LOGGER.debug("Deleting expired spool files {}", files.getFiles());
+      } else if (limit >= 0 && totalSize > limit) {
+        LOGGER.debug(
+            "Spool is larger than {} bytes. Deleting spool files {}", limit, files.getFiles());
+      } else {
+        break;
+      }
+      if (files.delete()) {
+        totalSize -= files.getSize();
+      }
+    }
+  }
+
+  /**
+   * Opens the resource for a metacard, picking up from what was spooled by an earlier attempt to
+   * send it.
+   *
+   * @throws IngestException if the resource could not be retrieved
+   */
+  SpooledResource open(ReplicationStore source, String destinationName, Metacard metacard, URI uri)
+      throws IngestException {
+    final String key = getKey(source.getRemoteName(), destinationName, metacard, uri);
+    // the spool files of an open resource are left alone by clean up, so the key is marked as open
+    // before any of them are read or written
+    markOpen(key);
+    try {
+      return open(source, metacard, uri, key, () -> markClosed(key));
+    } catch (IngestException | RuntimeException e) {
+      markClosed(key);
+      throw e;
+    }
+  }
+
+  /** Waits for any clean up in progress to finish before marking the resource as open */
+  private synchronized void markOpen(String key) {
+    openKeys.add(key);
+  }
+
+  private synchronized void markClosed(String key) {
+    openKeys.remove(key);
+  }
+
+  /** @param onClose called when the resource is closed */
+  private SpooledResource open(
+      ReplicationStore source, Metacard metacard, URI uri, String key, Runnable onClose)
+      throws IngestException {
+    final Path file = directory.resolve(key);
+    final Path partialFile = directory.resolve(key + PARTIAL_SUFFIX);
+    final Path propertiesFile = directory.resolve(key + PROPERTIES_SUFFIX);
+    // the metacard's resource size can be out of date, so it's only used to decide whether to spool
+    final long sizeHint = getResourceSize(metacard);
+    final long spoolLimit = maxSpoolSize;
+    final SpooledResource.Downloader downloader =
+        position -> openStream(source, metacard, uri, position);
+
+    try {
+      Files.createDirectories(directory);
+      if (Files.exists(file) && Files.exists(propertiesFile)) {
+        LOGGER.debug("Using previously spooled resource for metacard {}", metacard.getId());
+        final Properties properties = loadProperties(propertiesFile);
+        return new SpooledResource(
+            downloader,
+            file,
+            partialFile,
+            spoolLimit,
+            properties.getProperty(MIME_TYPE_KEY),
+            properties.getProperty(NAME_KEY),
+            sizeHint,
+            Files.size(file),
+            null,
+            0,
+            onClose);
+      }
+
+      if (sizeHint > spoolLimit) {
+        Files.deleteIfExists(partialFile);
+      }
+      final long offset = Files.exists(partialFile) ? Files.size(partialFile) : 0;
+      final ResourceResponse response = retrieveResource(source, metacard, uri, offset);
+      final boolean resumed = offset > 0 && wereBytesSkipped(response);
+      if (offset > 0 && !resumed) {
+        LOGGER.debug(
+            "{} does not support resuming the download of the resource for metacard {}. Starting over.",
+            source.getRemoteName(),
+            metacard.getId());
+        Files.deleteIfExists(partialFile);
+      }
+
+      final Resource resource = response.getResource();
+      saveProperties(propertiesFile, resource);
+      return new SpooledResource(
+          downloader,
+          file,
+          partialFile,
+          spoolLimit,
+          resource.getMimeTypeValue(),
+          resource.getName(),
+          sizeHint,
+          getReportedSize(resource, resumed ? offset : 0),
+          resource.getInputStream(),
+          resumed ? offset : 0,
+          onClose);
+    } catch (IOException e) {
+      throw new IngestException("Failed to open resource for metacard " + metacard.getId(), e);
+    }
+  }
+
+  /** Deletes the spool files for a resource that has been sent to the destination. */
+  void release(ReplicationStore source, String destinationName, Metacard metacard, URI uri) {
+    final String key = getKey(source.getRemoteName(), destinationName, metacard, uri);
+    try {
+      Files.deleteIfExists(directory.resolve(key));
+      Files.deleteIfExists(directory.resolve(key + PARTIAL_SUFFIX));
+      Files.deleteIfExists(directory.resolve(key + PROPERTIES_SUFFIX));
+    } catch (IOException e) {
+      LOGGER.debug("Failed to delete spooled resource for metacard {}", metacard.getId(), e);
+    }
+  }
+
+  private SpooledResource.Download openStream(
+      ReplicationStore source, Metacard metacard, URI uri, long position) throws IOException {
+    final ResourceResponse response;
+    try {
+      response = retrieveResource(source, metacard, uri, position);
+    } catch (IngestException e) {
+      throw new IOException(e);
+    }
+
+    final Resource resource = response.getResource();
+    if (position > 0 && !wereBytesSkipped(response)) {
+      return new SpooledResource.Download(
+          SpooledResource.skipTo(resource.getInputStream(), position),
+          getReportedSize(resource, 0));
+    }
+    return new SpooledResource.Download(
+        resource.getInputStream(), getReportedSize(resource, position));
+  }
+
+  /**
+   * @param skipped the number of bytes the source skipped before the start of the resource it
+   *     returned
+   * @return the size of the whole resource from the content length the source reported, or -1 if
+   *     it didn't report one
+   */
+  private long getReportedSize(Resource resource, long skipped) {
+    return resource.getSize() < 0 ? -1 : skipped + resource.getSize();
+  }
+
+  private ResourceResponse retrieveResource(
+      ReplicationStore source, Metacard metacard, URI uri, long offset) throws IngestException {
+    final Map<String, Serializable> properties = new HashMap<>();
+    properties.put(Core.ID, metacard.getId());
+    if (offset > 0) {
+      properties.put(ResourceRequest.BYTES_TO_SKIP, offset);
+    }
+    try {
+      return source.retrieveResource(uri, properties);
+    } catch (ResourceNotFoundException | ResourceNotSupportedException | IOException e) {
+      throw new IngestException("Failed to retrieve resource for metacard " + metacard.getId(), e);
+    }
+  }
+
+  private boolean wereBytesSkipped(ResourceResponse response) {
+    return Boolean.TRUE.equals(response.getPropertyValue(ResourceResponse.BYTES_SKIPPED));
+  }
+
+  /** @return the size of the metacard's resource in bytes, or -1 if it isn't known */
+  private long getResourceSize(Metacard metacard) {
+    try {
+      return metacard.getResourceSize() == null ? -1 : Long.parseLong(metacard.getResourceSize());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** The spool files of one resource */
+  private static class SpooledFiles {
+
+    private final List<Path> files = new ArrayList<>();
+
+    private long size;
+
+    private long lastUsed;
+
+    void add(Path file, long fileSize, long fileLastUsed) {
+      files.add(file);
+      size += fileSize;
+      lastUsed = Math.max(lastUsed, fileLastUsed);
+    }
+
+    List<Path> getFiles() {
+      return files;
+    }
+
+    long getSize() {
+      return size;
+    }
+
+    /** @return when in milliseconds since the epoch any of the files was last modified */
+    long getLastUsed() {
+      return lastUsed;
+    }
+
+    /** @return {@code true} if all of the files were deleted */
+    boolean delete() {
+      try {
+        for (Path file : files) {
+          Files.deleteIfExists(file);
+        }
+        return true;
+      } catch (IOException e) {
+        LOGGER.debug("Failed to delete spool files {}", files, e);
+        return false;
+      }
+    }
+  }
+
+  private void saveProperties(Path propertiesFile, Resource resource) throws IOException {
+    final Properties properties = new Properties();
+    if (resource.getMimeTypeValue() != null) {
+      properties.setProperty(MIME_TYPE_KEY, resource.getMimeTypeValue());
+    }
+    if (resource.getName() != null) {
+      properties.setProperty(NAME_KEY, resource.getName());
+    }
+    try (OutputStream out = Files.newOutputStream(propertiesFile)) {
+      properties.store(out, null);
+    }
+  }
+
+  private Properties loadProperties(Path propertiesFile) throws IOException {
+    final Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(propertiesFile)) {
+      properties.load(in);
+    }
+    return properties;
+  }
+
+  /** @return the key of the resource a spool file belongs to */
+  private String getKey(Path file) {
+    final String name = file.getFileName().toString();
+    if (name.endsWith(PARTIAL_SUFFIX)) {
+      return name.substring(0, name.length() - PARTIAL_SUFFIX.length());
+    } else if (name.endsWith(PROPERTIES_SUFFIX)) {
+      return name.substring(0, name.length() - PROPERTIES_SUFFIX.length());
+    }
+    return name;
+  }
+
+  private String getKey(String sourceName, String destinationName, Metacard metacard, URI uri) {
+    final Attribute checksum = metacard.getAttribute(Core.CHECKSUM);
+    final String version =
+        String.join(
+            "|",
+            sourceName,
+            destinationName,
+            metacard.getId(),
+            uri.toString(),
+            String.valueOf(
+                metacard.getModifiedDate() == null ? null : metacard.getModifiedDate().getTime()),
+            String.valueOf(checksum == null ? null : checksum.getValue()));
+    return Hashing.sha256().hashString(version, StandardCharsets.UTF_8).toString();
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lets a replication run be paused, resumed, canceled or stopped while it executes. The run checks
+ * in between items, so an item that is already being sent always finishes first.
+ *
+ * <p>Whether the run is paused is looked up rather than kept here, so a run that starts while its
+ * config is paused starts paused. The paused state is checked again every so often while waiting,
+ * in case a resume was missed.
+ *
+ * <p>Thread safe.
+ */
+class RunControl {
+
+  private static final long RECHECK_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+  private final long deadline;
+
+  private final BooleanSupplier paused;
+
+  private boolean canceled;
+
+  private boolean stopping;
+
+  /**
+   * @param deadline when in milliseconds since the epoch the run should stop and continue later
+   * @param paused whether the run's config is currently paused
+   */
+  RunControl(long deadline, BooleanSupplier paused) {
+    this.deadline = deadline;
+    this.paused = paused;
+  }
+
+  /** @return {@code true} once the run has reached its maximum run duration or been stopped */
+  synchronized boolean isPastDeadline() {
+    return stopping || System.currentTimeMillis() >= deadline;
+  }
+
+  /** Stops the run at the next item, even if it is paused. */
+  synchronized void cancel() {
+    canceled = true;
+    notifyAll();
+  }
+
+  synchronized boolean isCanceled() {
+    return canceled;
+  }
+
+  /**
+   * Stops the run at the next item, even if it is paused, so it can continue after a restart.
+   * Unlike {@link #cancel()}, the run ends as if it had reached its deadline.
+   */
+  synchronized void stop() {
+    stopping = true;
+    notifyAll();
+  }
+
+  /** Wakes up a paused run to check if it has been resumed. */
+  synchronized void wake() {
+    notifyAll();
+  }
+
+  /**
+   * Waits for as long as the run is paused.
+   *
+   * @return {@code false} if the run has been canceled or stopped
+   */
+  synchronized boolean awaitResumed() throws InterruptedException {
+    while (!canceled && !stopping && paused.getAsBoolean()) {
+      wait(RECHECK_MILLIS);
+    }
+    return !canceled && !stopping;
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Caps how much work is done against each remote system at once, no matter how many replication
+ * configurations point at it. A site is identified by the host and port of a config's URL, so the
+ * caps are shared by every config for that site.
+ *
+ * <p>Runs are capped so a slow site can't take up every worker. A run that would go over its site's
+ * cap is left in the queue rather than given a worker to wait on. Resource transfers are capped so
+ * concurrent runs don't flood a site with uploads and downloads. Transfers over the cap wait their
+ * turn in the order they arrived.
+ */
+class SiteLimits {
+
+  private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+  private volatile int maxRuns;
+
+  private volatile int maxTransfers;
+
+  SiteLimits(int maxRuns, int maxTransfers) {
+    this.maxRuns = Math.max(1, maxRuns);
+    this.maxTransfers = Math.max(1, maxTransfers);
+  }
+
+  /** @return the limits of the site for a URL */
+  Site getSite(URL url) {
+    final int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+    final String key = url.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+    return sites.computeIfAbsent(key, Site::new);
+  }
+
+  /** Sets the most runs for each site at once. Values less than 1 are treated as 1. */
+  void setMaxRuns(int maxRuns) {
+    this.maxRuns = Math.max(1, maxRuns);
+    sites.values().forEach(site -> site.runs.limitChanged());
+  }
+
+  /** Sets the most resource transfers with each site at once. Values less than 1 are taken as 1. */
+  void setMaxTransfers(int maxTransfers) {
+    this.maxTransfers = Math.max(1, maxTransfers);
+    sites.values().forEach(site -> site.transfers.limitChanged());
+  }
+
+  /** The caps for one remote system */
+  class Site {
+
+    private final String name;
+
+    private final Limit runs = new Limit(() -> maxRuns);
+
+    private final Limit transfers = new Limit(() -> maxTransfers);
+
+    private Site(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Starts a run against the site if it is under its cap. Must be followed by {@link
+     * #releaseRun()} if it succeeds.
+     *
+     * @return {@code false} if the site already has as many runs as it is allowed
+     */
+    boolean tryAcquireRun() {
+      return runs.tryAcquire();
+    }
+
+    void releaseRun() {
+      runs.release();
+    }
+
+    /**
+     * Waits for the site to be under its transfer cap and starts a transfer. Must be followed by
+     * {@link #releaseTransfer()}.
+     */
+    void acquireTransfer() throws InterruptedException {
+      transfers.acquire();
+    }
+
+    void releaseTransfer() {
+      transfers.release();
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /** Counts what is in use against a maximum that can change, handing out waiting turns in order */
+  private static class Limit {
+
+    private final IntSupplier max;
+
+    // fair, so a signalled thread gets the lock ahead of any thread that has just arrived
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private final Condition released = lock.newCondition();
+
+    private int inUse;
+
+    Limit(IntSupplier max) {
+      this.max = max;
+    }
+
+    boolean tryAcquire() {
+      lock.lock();
+      try {
+        if (inUse < max.getAsInt()) {
+          inUse++;
+          return true;
+        }
+        return false;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void acquire() throws InterruptedException {
+      lock.lockInterruptibly();
+      try {
+        while (inUse >= max.getAsInt()) {
+          released.await();
+        }
+        inUse++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void release() {
+      lock.lock();
+      try {
+        inUse--;
+        released.signal();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void limitChanged() {
+      lock.lock();
+      try {
+        released.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
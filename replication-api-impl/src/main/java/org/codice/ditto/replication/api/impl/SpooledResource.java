@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.CountingInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A resource being downloaded from a source. The content can be read any number of times. Reading
+ * it streams the resource from the source while copying it to a spool file, and later reads are
+ * served from the spool file. If the download is cut off part way it is resumed from where it left
+ * off, so whoever is reading the content never sees the interruption.
+ *
+ * <p>Resources larger than the spool limit are never copied to disk, so every read of them streams
+ * from the source. A download is only known to be complete when the source reported the size of the
+ * resource, in which case reading fewer or more bytes than that fails the read.
+ *
+ * <p>Not thread safe. Only one stream should be read at a time.
+ */
+class SpooledResource implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpooledResource.class);
+
+  private static final int MAX_RESUME_ATTEMPTS = 3;
+
+  private final Downloader downloader;
+
+  private final Path file;
+
+  private final Path partialFile;
+
+  private final long maxSpoolSize;
+
+  private final String mimeType;
+
+  private final String name;
+
+  /** The size the resource is expected to be, only used to decide whether to spool it */
+  private final long sizeHint;
+
+  /** The size of the resource as reported by the source, or -1 if it didn't report one */
+  private final long size;
+
+  /** A stream of the resource that was opened but not read yet, or {@code null} */
+  private InputStream pendingStream;
+
+  /** The position in the resource that {@link #pendingStream} starts at */
+  private long pendingStreamPosition;
+
+  private final Runnable onClose;
+
+  private boolean closed;
+
+  /** Every stream of the content that has been opened, to count how much of it has been read */
+  private final List<CountingInputStream> contentStreams = new ArrayList<>();
+
+  private final ByteSource content =
+      new ByteSource() {
+        @Override
+        public InputStream openStream() throws IOException {
+          final CountingInputStream stream = new CountingInputStream(openContentStream());
+          contentStreams.add(stream);
+          return stream;
+        }
+      };
+
+  /**
+   * @param downloader used to open streams of the resource
+   * @param file where the resource is moved to once it has all been spooled
+   * @param partialFile where the resource is spooled to while it is being read
+   * @param maxSpoolSize the most bytes to spool. If the resource turns out to be larger it is
+   *     streamed from the source every time it is read.
+   * @param sizeHint the size the resource is expected to be in bytes, or -1 if it isn't known
+   * @param size the size of the resource in bytes as reported by the source, or -1 if it isn't
+   *     known
+   * @param pendingStream a stream of the resource that has already been opened, or {@code null}
+   * @param pendingStreamPosition the position in the resource the pending stream starts at
+   * @param onClose called when the resource is closed
+   */
+  SpooledResource(
+      Downloader downloader,
+      Path file,
+      Path partialFile,
+      long maxSpoolSize,
+      String mimeType,
+      String name,
+      long sizeHint,
+      long size,
+      InputStream pendingStream,
+      long pendingStreamPosition,
+      Runnable onClose) {
+    this.downloader = downloader;
+    this.file = file;
+    this.partialFile = partialFile;
+    this.maxSpoolSize = maxSpoolSize;
+    this.mimeType = mimeType;
+    this.name = name;
+    this.sizeHint = sizeHint;
+    this.size = size;
+    this.pendingStream = pendingStream;
+    this.pendingStreamPosition = pendingStreamPosition;
+    this.onClose = onClose;
+  }
+
+  /** @return the content of the resource, which can be opened as many times as needed */
+  ByteSource getContent() {
+    return content;
+  }
+
+  String getMimeType() {
+    return mimeType;
+  }
+
+  /** @return the name of the resource, or {@code null} if the source didn't give one */
+  String getName() {
+    return name;
+  }
+
+  /** @return the size of the resource reported by the source, or -1 if it isn't known */
+  long getSize() {
+    return size;
+  }
+
+  /** @return the number of bytes read from the content, counting every time it was read */
+  long getBytesRead() {
+    return contentStreams.stream().mapToLong(CountingInputStream::getCount).sum();
+  }
+
+  /** Closes the stream opened for the resource if it was never read. */
+  @Override
+  public void close() {
+    Closeables.closeQuietly(pendingStream);
+    pendingStream = null;
+    if (!closed) {
+      closed = true;
+      onClose.run();
+    }
+  }
+
+  private InputStream openContentStream() throws IOException {
+    if (Files.exists(file)) {
+      return Files.newInputStream(file);
+    }
+
+    final long spooledSize = Files.exists(partialFile) ? Files.size(partialFile) : 0;
+    if (spooledSize == 0) {
+      return new DownloadStream(0);
+    }
+    return new SequenceInputStream(
+        Files.newInputStream(partialFile), new DownloadStream(spooledSize));
+  }
+
+  /** Takes the pending stream if it starts at the position, otherwise opens a new one. */
+  private Download openDownload(long position) throws IOException {
+    if (pendingStream != null) {
+      final InputStream stream = pendingStream;
+      pendingStream = null;
+      if (pendingStreamPosition == position) {
+        return new Download(stream, size);
+      }
+      Closeables.closeQuietly(stream);
+    }
+    return downloader.open(position);
+  }
+
+  /** Opens a stream of the resource that starts at a position in it */
+  interface Downloader {
+
+    Download open(long position) throws IOException;
+  }
+
+  /** A stream of the resource and the size of the whole resource the source reported with it */
+  static class Download {
+
+    private final InputStream stream;
+
+    private final long size;
+
+    /** @param size the size of the whole resource in bytes, or -1 if the source didn't report it */
+    Download(InputStream stream, long size) {
+      this.stream = stream;
+      this.size = size;
+    }
+
+    InputStream getStream() {
+      return stream;
+    }
+
+    long getSize() {
+      return size;
+    }
+  }
+
+  /**
+   * Reads the resource from the source starting at a position, copying what is read to the end of
+   * the partial spool file and resuming the download if it is cut off.
+   */
+  private class DownloadStream extends InputStream {
+
+    private long position;
+
+    private InputStream in;
+
+    /** The size of the resource reported with the last stream opened, or -1 if it isn't known */
+    private long expectedSize = -1;
+
+    private OutputStream spool;
+
+    private boolean spooling;
+
+    private int failures;
+
+    DownloadStream(long position) {
+      this.position = position;
+      // spooling can't start part way, since the spool file has to hold the start of the resource
+      this.spooling =
+          position == 0
+              ? (size >= 0 ? size : sizeHint) <= maxSpoolSize
+              : Files.exists(partialFile);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      while (true) {
+        final int count;
+        try {
+          if (in == null) {
+            final Download download = openDownload(position);
+            in = download.getStream();
+            if (download.getSize() >= 0) {
+              expectedSize = download.getSize();
+            }
+          }
+          count = in.read(b, off, len);
+        } catch (IOException e) {
+          Closeables.closeQuietly(in);
+          in = null;
+          if (++failures > MAX_RESUME_ATTEMPTS) {
+            throw e;
+          }
+          LOGGER.debug("Download of resource was interrupted at byte {}. Resuming.", position, e);
+          continue;
+        }
+
+        if (count < 0) {
+          finish();
+          return -1;
+        }
+        failures = 0;
+        position += count;
+        spool(b, off, count);
+        return count;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      Closeables.closeQuietly(in);
+      in = null;
+      Closeables.close(spool, true);
+      spool = null;
+    }
+
+    private void spool(byte[] b, int off, int len) {
+      if (!spooling) {
+        return;
+      }
+
+      try {
+        if (position > maxSpoolSize) {
+          LOGGER.debug("Resource is larger than {} bytes. No longer spooling it.", maxSpoolSize);
+          stopSpooling();
+          return;
+        }
+        if (spool == null) {
+          spool =
+              Files.newOutputStream(
+                  partialFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        spool.write(b, off, len);
+      } catch (IOException e) {
+        // the download can carry on without the spool
+        LOGGER.debug("Failed to spool resource to {}. No longer spooling it.", partialFile, e);
+        stopSpooling();
+      }
+    }
+
+    private void stopSpooling() {
+      spooling = false;
+      try {
+        Closeables.close(spool, true);
+        spool = null;
+        Files.deleteIfExists(partialFile);
+      } catch (IOException e) {
+        LOGGER.debug("Failed to delete partially spooled resource {}", partialFile, e);
+      }
+    }
+
+    private void finish() throws IOException {
+      if (expectedSize >= 0 && position != expectedSize) {
+        stopSpooling();
+        throw new IOException(
+            String.format(
+                "Read %d bytes of a resource that the source reported as %d bytes",
+                position, expectedSize));
+      }
+
+      if (spooling) {
+        spooling = false;
+        if (spool != null) {
+          spool.close();
+          spool = null;
+        } else if (!Files.exists(partialFile)) {
+          // the resource is empty
+          Files.createFile(partialFile);
+        }
+        Files.move(partialFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+  }
+
+  /** Discards the first bytes of a stream of the whole resource so it starts at a position */
+  static InputStream skipTo(InputStream stream, long position) throws IOException {
+    try {
+      ByteStreams.skipFully(stream, position);
+      return stream;
+    } catch (IOException e) {
+      Closeables.closeQuietly(stream);
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.codice.ditto.replication.api.Direction;
+import org.codice.ditto.replication.api.SyncCheckpoint;
+
+public class SyncCheckpointImpl implements SyncCheckpoint {
+
+  private final String configurationId;
+
+  private final Direction direction;
+
+  public SyncCheckpointImpl(String configurationId, Direction direction) {
+    if (StringUtils.isBlank(configurationId)) {
+      throw new IllegalArgumentException("String argument may not be empty");
+    }
+    if (direction == null || direction == Direction.BOTH) {
+      throw new IllegalArgumentException("A checkpoint must be for either PULL or PUSH");
+    }
+    this.configurationId = configurationId;
+    this.direction = direction;
+  }
+
+  @Override
+  public String getConfigurationId() {
+    return configurationId;
+  }
+
+  @Override
+  public Direction getDirection() {
+    return direction;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "SyncCheckpointImpl{configurationId=%s, direction=%s}", configurationId, direction);
+  }
+}
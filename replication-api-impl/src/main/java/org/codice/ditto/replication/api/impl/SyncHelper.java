@@ -14,7 +14,9 @@
 package org.codice.ditto.replication.api.impl;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
 import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.Uninterruptibles;
 import ddf.catalog.Constants;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.data.impl.ContentItemImpl;
@@ -27,13 +29,12 @@ import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.data.types.Core;
 import ddf.catalog.filter.FilterBuilder;
-import ddf.catalog.filter.impl.SortByImpl;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteRequest;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.OperationTransaction.OperationType;
-import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.Response;
+import ddf.catalog.operation.Update;
 import ddf.catalog.operation.UpdateRequest;
 import ddf.catalog.operation.UpdateResponse;
 import ddf.catalog.operation.impl.CreateRequestImpl;
@@ -42,29 +43,42 @@ import ddf.catalog.operation.impl.OperationTransactionImpl;
 import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.QueryRequestImpl;
 import ddf.catalog.operation.impl.UpdateRequestImpl;
-import ddf.catalog.resource.Resource;
-import ddf.catalog.resource.ResourceNotFoundException;
-import ddf.catalog.resource.ResourceNotSupportedException;
 import ddf.catalog.source.IngestException;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
-import ddf.catalog.util.impl.ResultIterable;
 import ddf.security.SubjectUtils;
-import java.io.IOException;
-import java.io.InputStream;
 import java.io.Serializable;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.shiro.SecurityUtils;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.codice.ditto.replication.api.HighWaterMark;
 import org.codice.ditto.replication.api.ReplicationException;
 import org.codice.ditto.replication.api.ReplicationItem;
 import org.codice.ditto.replication.api.ReplicationPersistentStore;
@@ -78,14 +92,28 @@ import org.codice.ditto.replication.api.mcard.Replication;
 import org.geotools.filter.text.cql2.CQLException;
 import org.geotools.filter.text.ecql.ECQL;
 import org.opengis.filter.Filter;
-import org.opengis.filter.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Replicates the changes from a source to a destination using a pipeline. The calling thread pages
+ * through the change set and decides what needs to be done for each metacard, a pool of transfer
+ * threads sends the metacards and resources to the destination, and a single writer thread saves
+ * the results in the order the transfers were submitted. The queue between the transfer threads and
+ * the writer is bounded, so the change set is not read any faster than it can be replicated.
+ */
 class SyncHelper {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SyncHelper.class);
 
+  private static final int PAGE_SIZE = 100;
+
+  private static final int FAILURE_PAGE_SIZE = 1000;
+
+  /** Marks the end of the transfers submitted to the writer */
+  private static final Future<List<TransferResult>> END_OF_TRANSFERS =
+      CompletableFuture.completedFuture(Collections.emptyList());
+
   private final ReplicationStore source;
 
   private final String sourceName;
@@ -102,17 +130,90 @@ class SyncHelper {
 
   private final FilterBuilder builder;
 
-  private Metacard mcard;
+  private final int prefetchDepth;
+
+  private final ResourceSpool resourceSpool;
+
+  /** The remote site, which caps the number of resource transfers with it */
+  private final SiteLimits.Site site;
+
+  /** Pauses, cancels or time-boxes the run */
+  private final RunControl control;
+
+  /**
+   * How far through the change set previous runs have gotten, or {@code null} if there is no record
+   * of it. Only updated by the writer thread once the sync has started.
+   */
+  private HighWaterMark highWaterMark;
+
+  /**
+   * The ids of the metacards that previously failed to replicate and are still to be retried after
+   * the change set. An id is dropped once the change set has replicated it, since the state the
+   * retry would be decided from may not have been saved yet.
+   */
+  private final Set<String> pendingRetryIds = new LinkedHashSet<>();
 
-  private Optional<ReplicationItem> existingReplicationItem;
+  /** The persisted {@link ReplicationItem}s for the page of results currently being processed */
+  private Map<String, ReplicationItem> pageReplicationItems;
+
+  /**
+   * The ids of the metacards in the current page that have been replicated before and still exist
+   * in the destination
+   */
+  private Set<String> pageDestinationIds;
+
+  /** The ids of the metacards a delete has been batched up or sent for in the current page */
+  private final Set<String> pageDeletedIds = new HashSet<>();
+
+  /** The transfers submitted for the current page */
+  private final List<Future<List<TransferResult>>> pageTransfers = new ArrayList<>();
+
+  /** Metacard-only creates waiting to be sent to the destination */
+  private final List<ReplicationOperation> pendingCreates = new ArrayList<>();
+
+  /** Metacard-only updates waiting to be sent to the destination */
+  private final List<ReplicationOperation> pendingUpdates = new ArrayList<>();
+
+  /** Deletes waiting to be sent to the destination */
+  private final List<ReplicationOperation> pendingDeletes = new ArrayList<>();
 
   private final boolean isResourceReplication;
 
-  private long syncCount;
+  private final int batchSize;
+
+  private final ExecutorService transferExecutor;
+
+  private final ExecutorService writerExecutor;
+
+  /** The submitted transfers, in the order their results need to be saved */
+  private final BlockingQueue<Future<List<TransferResult>>> transferQueue;
+
+  /** Set when no more transfers should be started */
+  private volatile boolean stopped;
 
-  private long failCount;
+  private volatile boolean connectionLost;
 
-  private long bytesTransferred;
+  /** Set when the run stopped because it reached its deadline or was stopped for a shutdown */
+  private volatile boolean yielded;
+
+  private volatile boolean canceled;
+
+  private volatile RuntimeException writerFailure;
+
+  /**
+   * Set by the writer thread once the result of a submitted item wasn't saved, because it wasn't
+   * attempted, was canceled or lost its connection. The high-water mark can't move past that item.
+   */
+  private boolean resultMissed;
+
+  // only updated by the writer thread
+  private final AtomicLong syncCount = new AtomicLong();
+
+  private final AtomicLong failCount = new AtomicLong();
+
+  private final AtomicLong bytesTransferred = new AtomicLong();
+
+  private final AtomicLong transferTime = new AtomicLong();
 
   static SyncResponse performSync(
       ReplicationStore source,
@@ -120,8 +221,23 @@ class SyncHelper {
       ReplicatorConfig config,
       ReplicationPersistentStore persistentStore,
       ReplicatorHistory history,
-      FilterBuilder builder) {
-    return new SyncHelper(source, destination, config, persistentStore, history, builder).sync();
+      FilterBuilder builder,
+      int prefetchDepth,
+      ResourceSpool resourceSpool,
+      SiteLimits.Site site,
+      RunControl control) {
+    return new SyncHelper(
+            source,
+            destination,
+            config,
+            persistentStore,
+            history,
+            builder,
+            prefetchDepth,
+            resourceSpool,
+            site,
+            control)
+        .sync();
   }
 
   private SyncHelper(
@@ -130,99 +246,423 @@ class SyncHelper {
       ReplicatorConfig config,
       ReplicationPersistentStore persistentStore,
       ReplicatorHistory history,
-      FilterBuilder builder) {
+      FilterBuilder builder,
+      int prefetchDepth,
+      ResourceSpool resourceSpool,
+      SiteLimits.Site site,
+      RunControl control) {
     this.source = source;
     this.destination = destination;
     this.config = config;
     this.persistentStore = persistentStore;
     this.history = history;
     this.builder = builder;
+    this.prefetchDepth = prefetchDepth;
+    this.resourceSpool = resourceSpool;
+    this.site = site;
+    this.control = control;
     this.sourceName = source.getRemoteName();
     this.destinationName = destination.getRemoteName();
     this.isResourceReplication = ReplicationType.RESOURCE.equals(config.getReplicationType());
-    syncCount = 0;
-    failCount = 0;
-    bytesTransferred = 0;
+    this.batchSize = Math.max(1, config.getBatchSize());
+    this.highWaterMark =
+        persistentStore.getHighWaterMark(config.getId(), sourceName, destinationName).orElse(null);
+
+    final int transferThreadCount = Math.max(1, config.getTransferThreadCount());
+    this.transferExecutor =
+        Executors.newFixedThreadPool(
+            transferThreadCount,
+            StandardThreadFactoryBuilder.newThreadFactory("replicationTransferThread"));
+    this.writerExecutor =
+        Executors.newSingleThreadExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("replicationWriterThread"));
+    this.transferQueue = new ArrayBlockingQueue<>(transferThreadCount * 2);
   }
 
-  @SuppressWarnings("squid:S3655" /*isUpdatable performs the needed optional check*/)
   private SyncResponse sync() {
-    for (Result metacardResult : getMetacardChangeSet()) {
-      mcard = metacardResult.getMetacard();
-      existingReplicationItem = persistentStore.getItem(mcard.getId(), sourceName, destinationName);
+    final Date runStart = new Date();
+    pendingRetryIds.addAll(loadFailedIds());
+    final Date lastCompleteRunStart = getLastCompleteRunStart();
+    final Filter filter = buildFilter(lastCompleteRunStart);
+    final Filter deletedFilter = buildDeletedFilter(lastCompleteRunStart);
+    final Future<?> writer = writerExecutor.submit(this::writeResults);
+    try {
+      replicateChangeSet(filter, deletedFilter);
+      if (!stopped && !yielded) {
+        retryFailedItems();
+      }
+    } finally {
+      // the writer always drains the queue, so this won't block for long
+      Uninterruptibles.putUninterruptibly(transferQueue, END_OF_TRANSFERS);
+      awaitWriter(writer);
+      transferExecutor.shutdown();
+      writerExecutor.shutdown();
+    }
 
-      try {
-        if (isDeletedMetacard()) {
-          processDeletedMetacard();
-        } else {
-          if (isUpdatable()) {
-            processUpdate(existingReplicationItem.get());
-          } else {
-            processCreate();
+    if (writerFailure != null) {
+      throw new ReplicationException(
+          "Failed to save the results of replicating to " + destinationName, writerFailure);
+    }
+
+    if (canceled) {
+      LOGGER.debug(
+          "Replication from {} to {} for {} was canceled",
+          sourceName,
+          destinationName,
+          config.getName());
+      return new SyncResponse(
+          syncCount.get(),
+          failCount.get(),
+          bytesTransferred.get(),
+          transferTime.get(),
+          Status.CANCELED);
+    }
+
+    if (connectionLost) {
+      logConnectionLoss();
+      return new SyncResponse(
+          syncCount.get(),
+          failCount.get(),
+          bytesTransferred.get(),
+          transferTime.get(),
+          Status.CONNECTION_LOST);
+    }
+
+    if (yielded) {
+      LOGGER.debug(
+          "Replication from {} to {} for {} stopped before the end of the change set. It will continue in a later run.",
+          sourceName,
+          destinationName,
+          config.getName());
+      return new SyncResponse(
+          syncCount.get(),
+          failCount.get(),
+          bytesTransferred.get(),
+          transferTime.get(),
+          Status.PARTIAL);
+    }
+
+    saveCompleteRun(runStart);
+    return new SyncResponse(
+        syncCount.get(),
+        failCount.get(),
+        bytesTransferred.get(),
+        transferTime.get(),
+        Status.SUCCESS);
+  }
+
+  /**
+   * Replicates the changed metacards and the deleted metacards in the order they were changed, so a
+   * metacard that was deleted and then restored ends up in the destination. When both are in the
+   * same page, the metacard is only created again once the delete has finished. They are queried
+   * for separately because a single query for both is slow on large version stores. Once the
+   * deadline has passed, the run stops at the end of the next change set page.
+   *
+   * @param deletedFilter the filter for the deleted metacards, or {@code null} to skip them
+   */
+  private void replicateChangeSet(Filter filter, Filter deletedFilter) {
+    try (PrefetchingResultIterable changes = getMetacardChangeSet(filter, Core.METACARD_MODIFIED);
+        PrefetchingResultIterable deletions =
+            deletedFilter == null
+                ? null
+                : getMetacardChangeSet(deletedFilter, MetacardVersion.VERSIONED_ON)) {
+      final PageReader changeReader = new PageReader(changes.iterator(), Core.METACARD_MODIFIED);
+      final PageReader deletionReader =
+          new PageReader(
+              deletions == null ? Collections.emptyIterator() : deletions.iterator(),
+              MetacardVersion.VERSIONED_ON);
+
+      final List<Result> page = new ArrayList<>(PAGE_SIZE);
+      while (changeReader.hasNext() || deletionReader.hasNext()) {
+        final PageReader reader =
+            deletionReader.isNextBefore(changeReader) ? deletionReader : changeReader;
+        page.add(reader.next());
+
+        if (reader == changeReader && changeReader.isEndOfPage()) {
+          // every change up to the end of the change set page has been submitted
+          if (!processMergedPage(page)) {
+            return;
+          }
+          enqueue(new PageCommit(changeReader.getPage(), deletionReader.getLastRead()));
+          // the page commit moves the high-water mark, so a later run picks up after this page
+          if (control.isPastDeadline()
+              && (changeReader.hasNext() || deletionReader.hasNext())) {
+            yielded = true;
+            return;
+          }
+        } else if (page.size() >= PAGE_SIZE) {
+          if (!processMergedPage(page)) {
+            return;
           }
+          // the change set page isn't done, but the deletions read so far are
+          enqueue(new PageCommit(null, deletionReader.getLastRead()));
         }
-      } catch (Exception e) {
-        if (causedByConnectionLoss(e)) {
-          logConnectionLoss();
-          return new SyncResponse(syncCount, failCount, bytesTransferred, Status.CONNECTION_LOST);
-        } else {
-          recordItemFailure(e);
+      }
+
+      if (!page.isEmpty() && processMergedPage(page)) {
+        enqueue(new PageCommit(null, deletionReader.getLastRead()));
+      }
+    }
+  }
+
+  /** Processes and then clears a page of results merged from the change set and the deletions */
+  private boolean processMergedPage(List<Result> page) {
+    page.forEach(result -> pendingRetryIds.remove(getReplicatedMetacardId(result.getMetacard())));
+    final boolean processed = !stopped && processPage(page);
+    page.clear();
+    return processed;
+  }
+
+  /**
+   * Decides what needs to be done for each metacard in a page of the change set and submits the
+   * transfers. Metacard-only operations are sent to the destination in batches of up to {@link
+   * ReplicatorConfig#getBatchSize()} and any partial batch is sent before the page is done.
+   *
+   * @return {@code false} if replication was stopped before every metacard in the page was
+   *     submitted, such as when the connection to the source or destination was lost
+   */
+  @SuppressWarnings("squid:S3655" /*isUpdatable performs the needed optional check*/)
+  private boolean processPage(List<Result> page) {
+    pageDeletedIds.clear();
+    pageTransfers.clear();
+    pageReplicationItems = loadReplicationItems(page);
+    try {
+      pageDestinationIds = loadDestinationIds(page);
+    } catch (ReplicationException e) {
+      if (causedByConnectionLoss(e)) {
+        connectionLost = true;
+        stopped = true;
+        return false;
+      }
+      throw e;
+    }
+
+    for (Result metacardResult : page) {
+      if (stopped || !awaitResumed()) {
+        return false;
+      }
+
+      final Metacard mcard = metacardResult.getMetacard();
+      Optional<ReplicationItem> existingReplicationItem =
+          Optional.ofNullable(pageReplicationItems.get(getReplicatedMetacardId(mcard)));
+
+      final OperationType operationType;
+      if (isDeletedMetacard(mcard)) {
+        operationType = OperationType.DELETE;
+      } else if (pageDeletedIds.contains(mcard.getId())) {
+        // restored after being deleted earlier in this page, so it has to be created again once
+        // the delete is done
+        awaitPageTransfers();
+        existingReplicationItem = Optional.empty();
+        operationType = OperationType.CREATE;
+      } else if (isUpdatable(mcard, existingReplicationItem)) {
+        operationType = OperationType.UPDATE;
+      } else {
+        operationType = OperationType.CREATE;
+      }
+
+      try {
+        switch (operationType) {
+          case DELETE:
+            processDeletedMetacard(mcard, existingReplicationItem);
+            break;
+          case UPDATE:
+            processUpdate(mcard, existingReplicationItem.get());
+            break;
+          default:
+            processCreate(mcard, existingReplicationItem);
         }
+      } catch (Exception e) {
+        // queue the failure up for the writer so it is recorded in order with the transfers
+        enqueue(
+            CompletableFuture.completedFuture(
+                Collections.singletonList(
+                    TransferResult.failure(
+                        new ReplicationOperation(
+                            operationType,
+                            getReplicatedMetacardId(mcard),
+                            mcard,
+                            existingReplicationItem),
+                        e))));
       }
+
+      flushBatches(batchSize);
     }
-    return new SyncResponse(syncCount, failCount, bytesTransferred, Status.SUCCESS);
+    flushBatches(1);
+    // the writer keeps track of whether the transfers were stopped before they were attempted
+    return true;
   }
 
-  private Iterable<Result> getMetacardChangeSet() {
-    Filter filter = buildFilter();
+  /**
+   * Waits while the run is paused.
+   *
+   * @return {@code false} if the run was canceled or stopped, in which case no more transfers
+   *     should be started
+   */
+  private boolean awaitResumed() {
+    try {
+      if (control.awaitResumed()) {
+        return true;
+      }
+    } catch (InterruptedException e) {
+      stopped = true;
+      Thread.currentThread().interrupt();
+      throw new ReplicationException("Interrupted while replicating to " + destinationName, e);
+    }
+    stopAtControl();
+    return false;
+  }
 
-    final QueryRequest request =
-        new QueryRequestImpl(
-            new QueryImpl(
-                filter,
-                1,
-                100,
-                new SortByImpl(Core.METACARD_MODIFIED, SortOrder.ASCENDING),
-                false,
-                0L));
-    return ResultIterable.resultIterable(source::query, request);
+  /** Stops the run because it was canceled or stopped through its {@link RunControl} */
+  private void stopAtControl() {
+    if (control.isCanceled()) {
+      canceled = true;
+    } else {
+      yielded = true;
+    }
+    stopped = true;
   }
 
-  private Filter buildFilter() {
-    final Filter ecqlFilter;
-    final List<Filter> filters = createBasicMetacardFilters();
-    final List<Filter> failureFilters = createFailedMetacardFilters();
-    final ReplicationStatus lastSuccessfulRun =
-        history
-            .getReplicationEvents(config.getName())
+  /**
+   * Looks up the {@link ReplicationItem}s for a whole page of results at once so the items don't
+   * have to be retrieved from the persistent store one at a time.
+   */
+  private Map<String, ReplicationItem> loadReplicationItems(List<Result> page) {
+    Set<String> ids =
+        page
             .stream()
-            .filter(status -> status.getStatus().equals(Status.SUCCESS))
-            .findFirst()
-            .orElse(null);
-    Filter finalFilter;
+            .map(Result::getMetacard)
+            .map(this::getReplicatedMetacardId)
+            .collect(Collectors.toSet());
+    return persistentStore.getItems(ids, sourceName, destinationName);
+  }
+
+  /**
+   * Checks which of the previously replicated metacards in the page still exist in the destination
+   * using a single query, rather than querying the destination once per metacard.
+   */
+  private Set<String> loadDestinationIds(List<Result> page) {
+    List<Filter> idFilters =
+        page
+            .stream()
+            .map(Result::getMetacard)
+            .filter(metacard -> !isDeletedMetacard(metacard))
+            .map(Metacard::getId)
+            .filter(pageReplicationItems::containsKey)
+            .map(id -> builder.attribute(Core.ID).is().equalTo().text(id))
+            .collect(Collectors.toList());
+
+    if (idFilters.isEmpty()) {
+      return Collections.emptySet();
+    }
 
     try {
-      ecqlFilter = ECQL.toFilter(config.getCql());
-    } catch (CQLException e) {
-      throw new ReplicationException("Error creating filter from cql: " + config.getCql(), e);
+      return destination
+          .query(
+              new QueryRequestImpl(
+                  new QueryImpl(builder.anyOf(idFilters), 1, idFilters.size(), null, false, 0L)))
+          .getResults()
+          .stream()
+          .map(Result::getMetacard)
+          .map(Metacard::getId)
+          .collect(Collectors.toSet());
+    } catch (UnsupportedOperationException | UnsupportedQueryException e) {
+      throw new ReplicationException(
+          "Error checking for the existence of metacards on " + destination.getRemoteName(), e);
+    }
+  }
+
+  private String getReplicatedMetacardId(Metacard metacard) {
+    if (isDeletedMetacard(metacard)) {
+      return (String) metacard.getAttribute(MetacardVersion.VERSION_OF_ID).getValue();
+    }
+    return metacard.getId();
+  }
+
+  private PrefetchingResultIterable getMetacardChangeSet(Filter filter, String dateAttribute) {
+    final ModifiedDateCursor cursor =
+        new ModifiedDateCursor(builder, filter, dateAttribute, PAGE_SIZE);
+    return new PrefetchingResultIterable(source, cursor, prefetchDepth);
+  }
+
+  /**
+   * @return the start time of the last run that replicated the entire change set, or {@code null}
+   *     if there hasn't been one
+   */
+  private Date getLastCompleteRunStart() {
+    if (highWaterMark != null) {
+      return highWaterMark.getLastCompleteRunStart();
     }
 
-    if (lastSuccessfulRun != null) {
-      Date timeStamp = new Date(lastSuccessfulRun.getStartTime().getTime() - 1000);
-      List<Filter> deletedFilters = createDeletedMetacardFilters(timeStamp);
-      filters.add(builder.attribute(Core.METACARD_MODIFIED).is().after().date(timeStamp));
-      finalFilter =
-          builder.allOf(
-              ecqlFilter, builder.anyOf(builder.allOf(filters), builder.allOf(deletedFilters)));
+    // replication may have run before high-water marks were saved, so fall back to the history
+    return history
+        .getReplicationEvents(config.getName())
+        .stream()
+        .filter(status -> status.getStatus().equals(Status.SUCCESS))
+        .findFirst()
+        .map(ReplicationStatus::getStartTime)
+        .orElse(null);
+  }
+
+  private Filter buildFilter(Date lastCompleteRunStart) {
+    final List<Filter> filters = createBasicMetacardFilters();
+    final Date modifiedAfter;
+    final String idAtModifiedAfter;
+
+    if (highWaterMark != null && highWaterMark.getMetacardModified() != null) {
+      modifiedAfter = highWaterMark.getMetacardModified();
+      idAtModifiedAfter = highWaterMark.getMetacardId();
     } else {
-      filters.add(ecqlFilter);
-      finalFilter = builder.allOf(filters);
+      // a complete run that didn't replicate anything saves a high-water mark without a position
+      modifiedAfter =
+          lastCompleteRunStart == null ? null : new Date(lastCompleteRunStart.getTime() - 1000);
+      idAtModifiedAfter = null;
     }
 
-    if (!failureFilters.isEmpty()) {
-      finalFilter = builder.anyOf(finalFilter, builder.anyOf(failureFilters));
+    if (modifiedAfter != null) {
+      filters.add(
+          ModifiedDateCursor.createModifiedAfterFilter(
+              builder, Core.METACARD_MODIFIED, modifiedAfter, idAtModifiedAfter));
+    }
+    filters.add(createEcqlFilter());
+    return builder.allOf(filters);
+  }
+
+  /**
+   * @return the filter for the metacards deleted after the last deletion replicated, or since the
+   *     last complete run if no deletion has been replicated since then. {@code null} if there
+   *     hasn't been a complete run and so there is nothing in the destination to delete.
+   */
+  private Filter buildDeletedFilter(Date lastCompleteRunStart) {
+    if (lastCompleteRunStart == null) {
+      return null;
+    }
+
+    final List<Filter> deletedFilters = createDeletedMetacardFilters();
+    if (highWaterMark != null && highWaterMark.getDeletedOn() != null) {
+      deletedFilters.add(
+          ModifiedDateCursor.createModifiedAfterFilter(
+              builder,
+              MetacardVersion.VERSIONED_ON,
+              highWaterMark.getDeletedOn(),
+              highWaterMark.getDeletedId()));
+    } else {
+      deletedFilters.add(
+          builder
+              .attribute(MetacardVersion.VERSIONED_ON)
+              .after()
+              .date(new Date(lastCompleteRunStart.getTime() - 1000)));
+    }
+    deletedFilters.add(createEcqlFilter());
+    return builder.allOf(deletedFilters);
+  }
+
+  private Filter createEcqlFilter() {
+    try {
+      return ECQL.toFilter(config.getCql());
+    } catch (CQLException e) {
+      throw new ReplicationException("Error creating filter from cql: " + config.getCql(), e);
     }
-    return finalFilter;
   }
 
   private List<Filter> createBasicMetacardFilters() {
@@ -233,50 +673,97 @@ class SyncHelper {
     return filters;
   }
 
-  private List<Filter> createFailedMetacardFilters() {
-    final List<Filter> failureFilters = new ArrayList<>();
-    List<String> failedIDs =
-        persistentStore.getFailureList(config.getFailureRetryCount(), sourceName, destinationName);
-    for (String id : failedIDs) {
-      failureFilters.add(builder.attribute(Core.ID).is().equalTo().text(id));
+  /**
+   * Gets the ids of all the metacards that previously failed to replicate and should be retried.
+   * Read before anything is replicated so that metacards failing during this run aren't retried
+   * until the next one.
+   */
+  private List<String> loadFailedIds() {
+    final List<String> failedIds = new ArrayList<>();
+    List<String> page;
+    int startIndex = 0;
+    do {
+      page =
+          persistentStore.getFailureList(
+              config.getFailureRetryCount(),
+              sourceName,
+              destinationName,
+              startIndex,
+              FAILURE_PAGE_SIZE);
+      failedIds.addAll(page);
+      startIndex += page.size();
+    } while (page.size() == FAILURE_PAGE_SIZE);
+    return failedIds;
+  }
+
+  /**
+   * Retries the metacards that previously failed to replicate as a separate pass after the change
+   * set, querying for a page of them at a time by id. Metacards the change set already replicated
+   * are skipped.
+   */
+  private void retryFailedItems() {
+    for (List<String> ids : Lists.partition(new ArrayList<>(pendingRetryIds), PAGE_SIZE)) {
+      if (stopped) {
+        return;
+      }
+
+      final List<Result> results;
+      try {
+        results = queryForIds(ids);
+      } catch (ReplicationException e) {
+        if (causedByConnectionLoss(e)) {
+          connectionLost = true;
+          stopped = true;
+          return;
+        }
+        throw e;
+      }
+
+      if (!results.isEmpty() && !processPage(results)) {
+        return;
+      }
+    }
+  }
+
+  private List<Result> queryForIds(List<String> ids) {
+    final Filter filter =
+        builder.anyOf(
+            ids
+                .stream()
+                .map(id -> builder.attribute(Core.ID).is().equalTo().text(id))
+                .collect(Collectors.toList()));
+    try {
+      return source
+          .query(new QueryRequestImpl(new QueryImpl(filter, 1, ids.size(), null, false, 0L)))
+          .getResults();
+    } catch (UnsupportedQueryException e) {
+      throw new ReplicationException(
+          "Error querying for failed metacards on " + source.getRemoteName(), e);
     }
-    return failureFilters;
   }
 
-  private List<Filter> createDeletedMetacardFilters(Date timeStamp) {
+  private List<Filter> createDeletedMetacardFilters() {
     final List<Filter> deletedFilters = new ArrayList<>();
-    deletedFilters.add(builder.attribute(MetacardVersion.VERSIONED_ON).after().date(timeStamp));
     deletedFilters.add(
         builder.attribute(Core.METACARD_TAGS).is().equalTo().text(MetacardVersion.VERSION_TAG));
     deletedFilters.add(builder.attribute(MetacardVersion.ACTION).is().like().text("Deleted*"));
     return deletedFilters;
   }
 
-  private boolean isDeletedMetacard() {
-    return Optional.ofNullable(mcard.getAttribute(MetacardVersion.ACTION))
+  private boolean isDeletedMetacard(Metacard metacard) {
+    return Optional.ofNullable(metacard.getAttribute(MetacardVersion.ACTION))
         .filter(type -> type.getValue().toString().startsWith("Deleted"))
         .isPresent();
   }
 
-  private void processDeletedMetacard() throws IngestException {
-    String mcardId = (String) mcard.getAttribute(MetacardVersion.VERSION_OF_ID).getValue();
-    existingReplicationItem = persistentStore.getItem(mcardId, sourceName, destinationName);
+  private void processDeletedMetacard(
+      Metacard mcard, Optional<ReplicationItem> existingReplicationItem) {
+    String mcardId = getReplicatedMetacardId(mcard);
 
     if (existingReplicationItem.isPresent()) {
-      final DeleteRequest deleteRequest = new DeleteRequestImpl(mcardId);
-
-      // adding the operation transaction to avoid NPE when forming the response in AbstractCSWStore
-      deleteRequest
-          .getProperties()
-          .put(
-              Constants.OPERATION_TRANSACTION_KEY,
-              new OperationTransactionImpl(OperationType.DELETE, Collections.singletonList(mcard)));
-      final DeleteResponse deleteResponse = destination.delete(deleteRequest);
-      checkForProcessingErrors(deleteResponse, "DeleteRequest");
-
-      // remove oldReplicationItem from the store if the deleteRequest is successful
-      persistentStore.deleteItem(mcardId, sourceName, destinationName);
-      syncCount++;
+      pendingDeletes.add(
+          new ReplicationOperation(OperationType.DELETE, mcardId, mcard, existingReplicationItem));
+      pageDeletedIds.add(mcardId);
     } else {
       LOGGER.trace(
           "No replication item for deleted metacard (id = {}). Not sending a delete request.",
@@ -284,62 +771,112 @@ class SyncHelper {
     }
   }
 
-  private boolean isUpdatable() {
-    return existingReplicationItem.isPresent() && metacardExists(mcard.getId(), destination);
+  private void performMetacardDelete(String mcardId, Metacard mcard) throws IngestException {
+    final DeleteRequest deleteRequest = new DeleteRequestImpl(mcardId);
+
+    // adding the operation transaction to avoid NPE when forming the response in AbstractCSWStore
+    deleteRequest
+        .getProperties()
+        .put(
+            Constants.OPERATION_TRANSACTION_KEY,
+            new OperationTransactionImpl(OperationType.DELETE, Collections.singletonList(mcard)));
+    final DeleteResponse deleteResponse = destination.delete(deleteRequest);
+    checkForProcessingErrors(deleteResponse, "DeleteRequest");
   }
 
-  private boolean metacardExists(String id, ReplicationStore store) {
-    try {
-      return store
-              .query(
-                  new QueryRequestImpl(
-                      new QueryImpl(builder.attribute(Core.ID).is().equalTo().text(id))))
-              .getHits()
-          > 0;
-    } catch (UnsupportedOperationException | UnsupportedQueryException e) {
-      throw new ReplicationException(
-          "Error checking for the existence of metacard " + id + " on " + store.getRemoteName());
-    }
+  private boolean isUpdatable(Metacard mcard, Optional<ReplicationItem> existingReplicationItem) {
+    return existingReplicationItem.isPresent() && pageDestinationIds.contains(mcard.getId());
   }
 
-  private void processUpdate(ReplicationItem replicationItem)
-      throws IngestException, SourceUnavailableException {
-    prepMetacard();
-    if (resourceShouldBeUpdated(replicationItem)) {
-      performResourceUpdate();
-    } else if (metacardShouldBeUpdated(replicationItem)) {
-      performMetacardUpdate();
+  private void processUpdate(Metacard mcard, ReplicationItem replicationItem) {
+    prepMetacard(mcard);
+    if (resourceShouldBeUpdated(mcard, replicationItem)) {
+      submitResourceTransfer(
+          new ReplicationOperation(
+              OperationType.UPDATE, mcard.getId(), mcard, Optional.of(replicationItem), true));
+    } else if (metacardShouldBeUpdated(mcard, replicationItem)) {
+      pendingUpdates.add(
+          new ReplicationOperation(
+              OperationType.UPDATE, mcard.getId(), mcard, Optional.of(replicationItem)));
     } else {
-      logMetacardSkipped();
+      logMetacardSkipped(mcard, replicationItem);
     }
   }
 
-  private boolean resourceShouldBeUpdated(ReplicationItem replicationItem) {
+  private boolean resourceShouldBeUpdated(Metacard mcard, ReplicationItem replicationItem) {
     boolean hasResource = mcard.getResourceURI() != null;
     Date resourceModified = mcard.getModifiedDate();
-    return isResourceReplication
-        && hasResource
-        && (resourceModified.after(replicationItem.getResourceModified())
-            || replicationItem.getFailureCount() > 0);
+    if (!isResourceReplication
+        || !hasResource
+        || !(resourceModified.after(replicationItem.getResourceModified())
+            || replicationItem.getFailureCount() > 0)) {
+      return false;
+    }
+
+    // the modified date changes with metadata-only edits too, so don't resend a large resource
+    // that the destination already has
+    if (isResourceUnchanged(mcard, replicationItem)) {
+      LOGGER.trace(
+          "Resource for metacard (id = {}) has not changed. Only updating the metacard.",
+          mcard.getId());
+      return false;
+    }
+    return true;
   }
 
-  private void performResourceUpdate() throws IngestException, SourceUnavailableException {
-    final ContentItem contentItem = getResourceContentForMetacard();
-    final UpdateResponse updateResponse =
-        destination.update(
-            new UpdateStorageRequestImpl(Collections.singletonList(contentItem), new HashMap<>()));
-    checkForProcessingErrors(updateResponse, "UpdateStorageRequest");
-    bytesTransferred += Long.parseLong(mcard.getResourceSize());
-    recordSuccessfulReplication();
+  /**
+   * @return {@code true} if the checksum of the metacard's resource is known and matches the one
+   *     last replicated, along with the size if both sizes are known
+   */
+  private boolean isResourceUnchanged(Metacard mcard, ReplicationItem replicationItem) {
+    final String checksum = getResourceChecksum(mcard);
+    final long size = getResourceSize(mcard);
+    return checksum != null
+        && checksum.equals(replicationItem.getResourceChecksum())
+        && (size < 0
+            || replicationItem.getResourceSize() < 0
+            || size == replicationItem.getResourceSize());
   }
 
-  private boolean metacardShouldBeUpdated(ReplicationItem replicationItem) {
+  private String getResourceChecksum(Metacard mcard) {
+    final Attribute checksum = mcard.getAttribute(Core.CHECKSUM);
+    return checksum == null || checksum.getValue() == null ? null : checksum.getValue().toString();
+  }
+
+  /** @return the size of the metacard's resource in bytes, or -1 if it isn't known */
+  private long getResourceSize(Metacard mcard) {
+    try {
+      return mcard.getResourceSize() == null ? -1 : Long.parseLong(mcard.getResourceSize());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** @return the number of bytes transferred */
+  private long performResourceUpdate(Metacard mcard)
+      throws IngestException, SourceUnavailableException {
+    final URI uri = mcard.getResourceURI();
+    final long bytes;
+    try (SpooledResource resource = resourceSpool.open(source, destinationName, mcard, uri)) {
+      final ContentItem contentItem = getResourceContentForMetacard(mcard, resource);
+      final UpdateResponse updateResponse =
+          destination.update(
+              new UpdateStorageRequestImpl(
+                  Collections.singletonList(contentItem), new HashMap<>()));
+      checkForProcessingErrors(updateResponse, "UpdateStorageRequest");
+      bytes = resource.getBytesRead();
+    }
+    resourceSpool.release(source, destinationName, mcard, uri);
+    return bytes;
+  }
+
+  private boolean metacardShouldBeUpdated(Metacard mcard, ReplicationItem replicationItem) {
     Date metacardModified = (Date) mcard.getAttribute(Core.METACARD_MODIFIED).getValue();
     return metacardModified.after(replicationItem.getMetacardModified())
         || replicationItem.getFailureCount() > 0;
   }
 
-  private void performMetacardUpdate() throws IngestException {
+  private void performMetacardUpdate(Metacard mcard) throws IngestException {
     final UpdateRequest updateRequest = new UpdateRequestImpl(mcard.getId(), mcard);
 
     // adding the operation transaction to avoid NPE when forming the response in AbstractCSWStore
@@ -350,10 +887,9 @@ class SyncHelper {
             new OperationTransactionImpl(OperationType.UPDATE, Collections.singletonList(mcard)));
     final UpdateResponse updateResponse = destination.update(updateRequest);
     checkForProcessingErrors(updateResponse, "UpdateRequest");
-    recordSuccessfulReplication();
   }
 
-  private void logMetacardSkipped() {
+  private void logMetacardSkipped(Metacard mcard, ReplicationItem replicationItem) {
     LOGGER.trace(
         "Not updating product (id = {}, hasResource = {}, replicationType = {}, metacard modified = {}, resource modified = {}, existing replication item: {})",
         mcard.getId(),
@@ -361,36 +897,409 @@ class SyncHelper {
         config.getReplicationType(),
         mcard.getAttribute(Core.METACARD_MODIFIED).getValue(),
         mcard.getModifiedDate(),
-        existingReplicationItem);
+        replicationItem);
   }
 
-  private void processCreate() throws IngestException, SourceUnavailableException {
+  private void processCreate(Metacard mcard, Optional<ReplicationItem> existingReplicationItem) {
     boolean hasResource = mcard.getResourceURI() != null;
-    prepMetacard();
+    prepMetacard(mcard);
 
     if (isResourceReplication && hasResource) {
-      performResourceCreate();
+      submitResourceTransfer(
+          new ReplicationOperation(
+              OperationType.CREATE, mcard.getId(), mcard, existingReplicationItem, true));
     } else {
-      performMetacardCreate();
+      pendingCreates.add(
+          new ReplicationOperation(
+              OperationType.CREATE, mcard.getId(), mcard, existingReplicationItem));
     }
-    recordSuccessfulReplication();
   }
 
-  private void performResourceCreate() throws IngestException, SourceUnavailableException {
-    final ContentItem contentItem = getResourceContentForMetacard();
-    final CreateResponse createResponse =
-        destination.create(
-            new CreateStorageRequestImpl(Collections.singletonList(contentItem), new HashMap<>()));
-    checkForProcessingErrors(createResponse, "CreateStorageRequest");
-    bytesTransferred += Long.parseLong(mcard.getResourceSize());
+  /** @return the number of bytes transferred */
+  private long performResourceCreate(Metacard mcard)
+      throws IngestException, SourceUnavailableException {
+    final URI uri = mcard.getResourceURI();
+    final long bytes;
+    try (SpooledResource resource = resourceSpool.open(source, destinationName, mcard, uri)) {
+      final ContentItem contentItem = getResourceContentForMetacard(mcard, resource);
+      final CreateResponse createResponse =
+          destination.create(
+              new CreateStorageRequestImpl(
+                  Collections.singletonList(contentItem), new HashMap<>()));
+      checkForProcessingErrors(createResponse, "CreateStorageRequest");
+      bytes = resource.getBytesRead();
+    }
+    resourceSpool.release(source, destinationName, mcard, uri);
+    return bytes;
   }
 
-  private void performMetacardCreate() throws IngestException {
+  private void performMetacardCreate(Metacard mcard) throws IngestException {
     final CreateResponse createResponse = destination.create(new CreateRequestImpl(mcard));
     checkForProcessingErrors(createResponse, "CreateRequest");
   }
 
-  private void prepMetacard() {
+  private void submitResourceTransfer(ReplicationOperation operation) {
+    submitTransfer(
+        () -> {
+          if (stopped) {
+            return Collections.singletonList(TransferResult.notAttempted(operation));
+          }
+          try {
+            // a resource can take a while to send, so don't start one while the run is paused
+            if (!control.awaitResumed()) {
+              stopAtControl();
+              return Collections.singletonList(TransferResult.notAttempted(operation));
+            }
+            site.acquireTransfer();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.singletonList(TransferResult.notAttempted(operation));
+          }
+          try {
+            final long start = System.currentTimeMillis();
+            final long bytes =
+                operation.getOperationType() == OperationType.UPDATE
+                    ? performResourceUpdate(operation.getMetacard())
+                    : performResourceCreate(operation.getMetacard());
+            final long elapsed = System.currentTimeMillis() - start;
+            LOGGER.debug(
+                "Transferred {} bytes for metacard {} to {} in {} ms",
+                bytes,
+                operation.getId(),
+                destinationName,
+                elapsed);
+            return Collections.singletonList(TransferResult.success(operation, bytes, elapsed));
+          } catch (Exception e) {
+            return Collections.singletonList(TransferResult.failure(operation, e));
+          } finally {
+            site.releaseTransfer();
+          }
+        });
+  }
+
+  /** Submits every pending batch that has at least {@code minimumSize} operations in it. */
+  private void flushBatches(int minimumSize) {
+    flushBatch(pendingDeletes, minimumSize);
+    flushBatch(pendingCreates, minimumSize);
+    flushBatch(pendingUpdates, minimumSize);
+  }
+
+  private void flushBatch(List<ReplicationOperation> pending, int minimumSize) {
+    if (pending.isEmpty() || pending.size() < minimumSize) {
+      return;
+    }
+    final List<ReplicationOperation> batch = new ArrayList<>(pending);
+    pending.clear();
+    submitTransfer(() -> transferBatch(batch));
+  }
+
+  private List<TransferResult> transferBatch(List<ReplicationOperation> batch) {
+    Set<String> processedIds = Collections.emptySet();
+    long batchTime = 0;
+    if (batch.size() > 1 && !stopped) {
+      final long start = System.currentTimeMillis();
+      try {
+        processedIds = submitBatch(batch);
+        batchTime = System.currentTimeMillis() - start;
+      } catch (Exception e) {
+        LOGGER.debug(
+            "Failed to submit a batch of {} metacards to {}. Submitting them individually.",
+            batch.size(),
+            destinationName,
+            e);
+      }
+    }
+
+    // One metacard failing can cause the entire batch to fail. So, submit the metacards that
+    // weren't processed individually so that the failures are recorded for each item.
+    final List<TransferResult> results = new ArrayList<>(batch.size());
+    // the time to send a batch is split evenly between the metacards in it
+    final long batchItemTime = processedIds.isEmpty() ? 0 : batchTime / processedIds.size();
+    for (ReplicationOperation operation : batch) {
+      if (processedIds.contains(operation.getId())) {
+        results.add(TransferResult.success(operation, 0, batchItemTime));
+      } else if (stopped) {
+        results.add(TransferResult.notAttempted(operation));
+      } else {
+        try {
+          final long start = System.currentTimeMillis();
+          submitItem(operation);
+          results.add(
+              TransferResult.success(operation, 0, System.currentTimeMillis() - start));
+        } catch (Exception e) {
+          results.add(TransferResult.failure(operation, e));
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Sends all the operations in the batch to the destination in a single request.
+   *
+   * @return the ids of the metacards that were processed by the destination
+   */
+  private Set<String> submitBatch(List<ReplicationOperation> batch)
+      throws IngestException, SourceUnavailableException {
+    final OperationType operationType = batch.get(0).getOperationType();
+    final List<Metacard> metacards =
+        batch.stream().map(ReplicationOperation::getMetacard).collect(Collectors.toList());
+    final String[] ids = batch.stream().map(ReplicationOperation::getId).toArray(String[]::new);
+
+    switch (operationType) {
+      case CREATE:
+        final CreateResponse createResponse = destination.create(new CreateRequestImpl(metacards));
+        return getProcessedIds(
+            createResponse,
+            ids,
+            createResponse.getCreatedMetacards().stream().map(Metacard::getId));
+      case UPDATE:
+        final UpdateRequest updateRequest = new UpdateRequestImpl(ids, metacards);
+        updateRequest
+            .getProperties()
+            .put(
+                Constants.OPERATION_TRANSACTION_KEY,
+                new OperationTransactionImpl(OperationType.UPDATE, metacards));
+        final UpdateResponse updateResponse = destination.update(updateRequest);
+        return getProcessedIds(
+            updateResponse,
+            ids,
+            updateResponse
+                .getUpdatedMetacards()
+                .stream()
+                .map(Update::getNewMetacard)
+                .map(Metacard::getId));
+      case DELETE:
+        final DeleteRequest deleteRequest = new DeleteRequestImpl(ids);
+        deleteRequest
+            .getProperties()
+            .put(
+                Constants.OPERATION_TRANSACTION_KEY,
+                new OperationTransactionImpl(OperationType.DELETE, metacards));
+        final DeleteResponse deleteResponse = destination.delete(deleteRequest);
+        return getProcessedIds(
+            deleteResponse,
+            ids,
+            deleteResponse.getDeletedMetacards().stream().map(this::getReplicatedMetacardId));
+      default:
+        throw new IllegalArgumentException("Unsupported batch operation " + operationType);
+    }
+  }
+
+  /**
+   * If the destination reported no processing errors every metacard in the batch was processed,
+   * otherwise only the metacards in the response were.
+   */
+  private Set<String> getProcessedIds(
+      Response response, String[] batchIds, Stream<String> responseIds) {
+    if (CollectionUtils.isEmpty(response.getProcessingErrors())) {
+      return new HashSet<>(Arrays.asList(batchIds));
+    }
+    return responseIds.collect(Collectors.toSet());
+  }
+
+  private void submitItem(ReplicationOperation item) throws IngestException {
+    switch (item.getOperationType()) {
+      case CREATE:
+        performMetacardCreate(item.getMetacard());
+        break;
+      case UPDATE:
+        performMetacardUpdate(item.getMetacard());
+        break;
+      case DELETE:
+        performMetacardDelete(item.getId(), item.getMetacard());
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + item.getOperationType());
+    }
+  }
+
+  /**
+   * Submits a transfer to the transfer threads and queues it up for the writer. Blocks while the
+   * writer is behind by more than the transfer queue can hold.
+   */
+  private void submitTransfer(Callable<List<TransferResult>> transfer) {
+    final Future<List<TransferResult>> future =
+        transferExecutor.submit(SecurityUtils.getSubject().associateWith(transfer));
+    pageTransfers.add(future);
+    enqueue(future);
+  }
+
+  /**
+   * Sends every pending batch and waits for all of the transfers submitted for the current page to
+   * finish, so the transfers submitted after this are sent after them. Their results are still
+   * saved by the writer.
+   */
+  private void awaitPageTransfers() {
+    flushBatches(1);
+    for (Future<List<TransferResult>> transfer : pageTransfers) {
+      try {
+        Uninterruptibles.getUninterruptibly(transfer);
+      } catch (ExecutionException | CancellationException e) {
+        LOGGER.trace("Waited for a replication transfer to {} that failed", destinationName, e);
+      }
+    }
+    pageTransfers.clear();
+  }
+
+  private void enqueue(Future<List<TransferResult>> transfer) {
+    try {
+      transferQueue.put(transfer);
+    } catch (InterruptedException e) {
+      transfer.cancel(false);
+      stopped = true;
+      Thread.currentThread().interrupt();
+      throw new ReplicationException("Interrupted while replicating to " + destinationName, e);
+    }
+  }
+
+  /**
+   * Saves the results of the transfers in the order they were submitted. This is the only place
+   * replication items are saved and the counts are updated, so the counts are exact no matter how
+   * many transfer threads there are.
+   */
+  private void writeResults() {
+    Future<List<TransferResult>> transfer;
+    while ((transfer = Uninterruptibles.takeUninterruptibly(transferQueue)) != END_OF_TRANSFERS) {
+      if (writerFailure != null) {
+        transfer.cancel(false);
+        continue;
+      }
+
+      if (transfer instanceof PageCommit) {
+        // every transfer up to the end of the page has been saved unless one was missed
+        if (!resultMissed) {
+          advanceHighWaterMark((PageCommit) transfer);
+        }
+        continue;
+      }
+
+      try {
+        for (TransferResult result : Uninterruptibles.getUninterruptibly(transfer)) {
+          saveResult(result);
+        }
+      } catch (CancellationException e) {
+        LOGGER.trace("Replication transfer to {} was canceled", destinationName);
+        resultMissed = true;
+      } catch (ExecutionException e) {
+        writerFailure = new ReplicationException("Unexpected replication transfer failure", e);
+        stopped = true;
+      } catch (RuntimeException e) {
+        writerFailure = e;
+        stopped = true;
+      }
+    }
+  }
+
+  private void saveResult(TransferResult result) {
+    final ReplicationOperation operation = result.getOperation();
+    if (!result.wasAttempted()) {
+      resultMissed = true;
+      return;
+    }
+
+    if (result.getFailure() == null) {
+      if (operation.getOperationType() == OperationType.DELETE) {
+        // remove the replication item from the store since the delete was successful
+        persistentStore.deleteItem(operation.getId(), sourceName, destinationName);
+        syncCount.incrementAndGet();
+      } else {
+        recordSuccessfulReplication(operation);
+      }
+      bytesTransferred.addAndGet(result.getBytesTransferred());
+      transferTime.addAndGet(result.getTransferTime());
+    } else if (!connectionLost && !causedByConnectionLoss(result.getFailure())) {
+      recordItemFailure(
+          result.getFailure(), operation.getMetacard(), operation.getExistingReplicationItem());
+    } else {
+      // the item will be tried again once the connection is back, so it isn't a failure
+      connectionLost = true;
+      stopped = true;
+      resultMissed = true;
+    }
+  }
+
+  /**
+   * Moves the high-water mark up to the position of the change set cursor after a page and the last
+   * deletion read before it. Neither position ever moves back.
+   */
+  private void advanceHighWaterMark(PageCommit commit) {
+    Date modified = null;
+    String modifiedId = null;
+    Date deletedOn = null;
+    String deletedId = null;
+    Date lastCompleteRunStart = null;
+    if (highWaterMark != null) {
+      modified = highWaterMark.getMetacardModified();
+      modifiedId = highWaterMark.getMetacardId();
+      deletedOn = highWaterMark.getDeletedOn();
+      deletedId = highWaterMark.getDeletedId();
+      lastCompleteRunStart = highWaterMark.getLastCompleteRunStart();
+    }
+
+    boolean moved = false;
+    final ModifiedDateCursor.Page page = commit.getPage();
+    if (page != null
+        && page.getLastModified() != null
+        && (modified == null || !page.getLastModified().before(modified))) {
+      modified = page.getLastModified();
+      modifiedId = page.getLastId();
+      moved = true;
+    }
+
+    final Metacard deletion = commit.getLastDeletion();
+    final Date deletionDate =
+        deletion == null
+            ? null
+            : ModifiedDateCursor.getDate(deletion, MetacardVersion.VERSIONED_ON);
+    if (deletionDate != null && (deletedOn == null || !deletionDate.before(deletedOn))) {
+      deletedOn = deletionDate;
+      deletedId = deletion.getId();
+      moved = true;
+    }
+
+    if (!moved) {
+      return;
+    }
+
+    highWaterMark =
+        new HighWaterMarkImpl(
+            config.getId(),
+            sourceName,
+            destinationName,
+            modified,
+            modifiedId,
+            deletedOn,
+            deletedId,
+            lastCompleteRunStart);
+    persistentStore.saveHighWaterMark(highWaterMark);
+  }
+
+  /** Records that the entire change set up to the start of this run has been replicated. */
+  private void saveCompleteRun(Date runStart) {
+    highWaterMark =
+        new HighWaterMarkImpl(
+            config.getId(),
+            sourceName,
+            destinationName,
+            highWaterMark == null ? null : highWaterMark.getMetacardModified(),
+            highWaterMark == null ? null : highWaterMark.getMetacardId(),
+            highWaterMark == null ? null : highWaterMark.getDeletedOn(),
+            highWaterMark == null ? null : highWaterMark.getDeletedId(),
+            runStart);
+    persistentStore.saveHighWaterMark(highWaterMark);
+  }
+
+  private void awaitWriter(Future<?> writer) {
+    try {
+      Uninterruptibles.getUninterruptibly(writer);
+    } catch (ExecutionException e) {
+      throw new ReplicationException(
+          "Failed to save the results of replicating to " + destinationName, e);
+    }
+  }
+
+  private void prepMetacard(Metacard mcard) {
     List<Serializable> origins = new ArrayList<>();
     Attribute currentOrigins = mcard.getAttribute(Replication.ORIGINS);
     if (currentOrigins != null) {
@@ -418,16 +1327,10 @@ class SyncHelper {
     }
   }
 
-  private ContentItem getResourceContentForMetacard() throws IngestException {
+  private ContentItem getResourceContentForMetacard(Metacard mcard, SpooledResource resource) {
     URI uri = mcard.getResourceURI();
-    Resource resource = getResource(uri);
-    ByteSource byteSource =
-        new ByteSource() {
-          @Override
-          public InputStream openStream() {
-            return resource.getInputStream();
-          }
-        };
+    // the content can be read more than once without retrieving the resource again
+    ByteSource byteSource = resource.getContent();
 
     String qualifier = getQualifier(uri);
     ContentItem item =
@@ -435,29 +1338,18 @@ class SyncHelper {
             mcard.getId(),
             qualifier,
             byteSource,
-            resource.getMimeTypeValue(),
+            resource.getMimeType(),
             resource.getName() == null && qualifier != null
                 ? qualifier + ".bin"
                 : resource.getName(),
             resource.getSize(),
             mcard);
     if (qualifier != null) {
-      addDerivedResourceUriToMetacard(item);
+      addDerivedResourceUriToMetacard(mcard, item);
     }
     return item;
   }
 
-  private Resource getResource(URI uri) throws IngestException {
-    String mcardId = mcard.getId();
-    Map<String, Serializable> properties = new HashMap<>();
-    properties.put(Core.ID, mcardId);
-    try {
-      return source.retrieveResource(uri, properties).getResource();
-    } catch (ResourceNotFoundException | ResourceNotSupportedException | IOException e) {
-      throw new IngestException("Failed to retrieve resource for metacard " + mcardId, e);
-    }
-  }
-
   private String getQualifier(URI uri) {
     String qualifier = uri.getFragment();
     if (qualifier == null && uri.getQuery() != null) {
@@ -468,7 +1360,7 @@ class SyncHelper {
     return qualifier;
   }
 
-  private void addDerivedResourceUriToMetacard(ContentItem contentItem) {
+  private void addDerivedResourceUriToMetacard(Metacard mcard, ContentItem contentItem) {
     Attribute attribute = mcard.getAttribute(Core.DERIVED_RESOURCE_URI);
     if (attribute == null) {
       attribute = new AttributeImpl(Core.DERIVED_RESOURCE_URI, contentItem.getUri());
@@ -480,9 +1372,13 @@ class SyncHelper {
     mcard.setAttribute(attribute);
   }
 
-  private void recordSuccessfulReplication() {
-    persistentStore.saveItem(createReplicationItem());
-    syncCount++;
+  private void recordSuccessfulReplication(ReplicationOperation operation) {
+    persistentStore.saveItem(
+        createReplicationItem(
+            operation.getMetacard(),
+            operation.getExistingReplicationItem(),
+            operation.includesResource()));
+    syncCount.incrementAndGet();
   }
 
   private void checkForProcessingErrors(Response response, String requestType)
@@ -505,24 +1401,42 @@ class SyncHelper {
         Status.CONNECTION_LOST);
   }
 
-  private void recordItemFailure(Exception e) {
+  private void recordItemFailure(
+      Exception e, Metacard mcard, Optional<ReplicationItem> existingReplicationItem) {
     ReplicationItem newReplicationItem;
 
     LOGGER.debug("Exception processing record for metacard id {}", mcard.getId(), e);
     if (existingReplicationItem.isPresent()) {
       newReplicationItem = existingReplicationItem.get();
     } else {
-      newReplicationItem = createReplicationItem();
+      newReplicationItem = createReplicationItem(mcard, existingReplicationItem, false);
     }
     newReplicationItem.incrementFailureCount();
     persistentStore.saveItem(newReplicationItem);
-    failCount++;
+    failCount.incrementAndGet();
   }
 
-  private ReplicationItem createReplicationItem() {
+  /**
+   * @param resourceReplicated whether the resource was sent to the destination. If not, the
+   *     checksum and size of the resource that was last sent are kept.
+   */
+  private ReplicationItem createReplicationItem(
+      Metacard mcard,
+      Optional<ReplicationItem> existingReplicationItem,
+      boolean resourceReplicated) {
     String mcardId = mcard.getId();
     Date resourceModified = mcard.getModifiedDate();
     Date metacardModified = (Date) mcard.getAttribute(Core.METACARD_MODIFIED).getValue();
+    String resourceChecksum;
+    long resourceSize;
+    if (resourceReplicated) {
+      resourceChecksum = getResourceChecksum(mcard);
+      resourceSize = getResourceSize(mcard);
+    } else {
+      resourceChecksum =
+          existingReplicationItem.map(ReplicationItem::getResourceChecksum).orElse(null);
+      resourceSize = existingReplicationItem.map(ReplicationItem::getResourceSize).orElse(-1L);
+    }
 
     return new ReplicationItemImpl(
         mcardId,
@@ -532,6 +1446,226 @@ class SyncHelper {
         destinationName,
         existingReplicationItem.isPresent()
             ? existingReplicationItem.get().getConfigurationId()
-            : config.getId());
+            : config.getId(),
+        resourceChecksum,
+        resourceSize,
+        0);
+  }
+
+  /** A metacard operation to be sent to the destination */
+  private static class ReplicationOperation {
+
+    private final OperationType operationType;
+
+    private final String id;
+
+    private final Metacard metacard;
+
+    private final Optional<ReplicationItem> existingReplicationItem;
+
+    private final boolean includesResource;
+
+    ReplicationOperation(
+        OperationType operationType,
+        String id,
+        Metacard metacard,
+        Optional<ReplicationItem> existingReplicationItem) {
+      this(operationType, id, metacard, existingReplicationItem, false);
+    }
+
+    ReplicationOperation(
+        OperationType operationType,
+        String id,
+        Metacard metacard,
+        Optional<ReplicationItem> existingReplicationItem,
+        boolean includesResource) {
+      this.operationType = operationType;
+      this.id = id;
+      this.metacard = metacard;
+      this.existingReplicationItem = existingReplicationItem;
+      this.includesResource = includesResource;
+    }
+
+    OperationType getOperationType() {
+      return operationType;
+    }
+
+    /** @return the id of the metacard being replicated */
+    String getId() {
+      return id;
+    }
+
+    /** @return the metacard to send, or the deleted version metacard for deletes */
+    Metacard getMetacard() {
+      return metacard;
+    }
+
+    Optional<ReplicationItem> getExistingReplicationItem() {
+      return existingReplicationItem;
+    }
+
+    /** @return {@code true} if the resource is sent to the destination along with the metacard */
+    boolean includesResource() {
+      return includesResource;
+    }
+  }
+
+  /** Reads the results from a sequence of pages one at a time */
+  private static class PageReader {
+
+    private final Iterator<ModifiedDateCursor.Page> pages;
+
+    private final String dateAttribute;
+
+    private ModifiedDateCursor.Page page;
+
+    private int index;
+
+    private Metacard lastRead;
+
+    PageReader(Iterator<ModifiedDateCursor.Page> pages, String dateAttribute) {
+      this.pages = pages;
+      this.dateAttribute = dateAttribute;
+    }
+
+    boolean hasNext() {
+      while (page == null || isEndOfPage()) {
+        if (!pages.hasNext()) {
+          return false;
+        }
+        page = pages.next();
+        index = 0;
+      }
+      return true;
+    }
+
+    Result next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more results");
+      }
+      final Result result = page.getResults().get(index++);
+      lastRead = result.getMetacard();
+      return result;
+    }
+
+    /** @return the metacard of the last result read, or {@code null} if none have been read */
+    Metacard getLastRead() {
+      return lastRead;
+    }
+
+    /**
+     * @return {@code true} if this reader has a next result dated before the next result of the
+     *     other reader, treating results without a date as the earliest
+     */
+    boolean isNextBefore(PageReader other) {
+      return hasNext()
+          && (!other.hasNext()
+              || Comparator.<Date>nullsFirst(Comparator.naturalOrder())
+                      .compare(peekDate(), other.peekDate())
+                  < 0);
+    }
+
+    /** @return {@code true} if every result in the current page has been read */
+    boolean isEndOfPage() {
+      return index >= page.getResults().size();
+    }
+
+    /** @return the page the last result was read from */
+    ModifiedDateCursor.Page getPage() {
+      return page;
+    }
+
+    private Date peekDate() {
+      return ModifiedDateCursor.getDate(page.getResults().get(index).getMetacard(), dateAttribute);
+    }
+  }
+
+  /** Queued after all of the transfers for a page so the writer knows when the page is saved */
+  private static class PageCommit extends CompletableFuture<List<TransferResult>> {
+
+    private final ModifiedDateCursor.Page page;
+
+    private final Metacard lastDeletion;
+
+    /**
+     * @param page the change set page that was finished, or {@code null} if only deletions were
+     * @param lastDeletion the last deleted metacard version submitted, or {@code null} if none
+     */
+    PageCommit(ModifiedDateCursor.Page page, Metacard lastDeletion) {
+      this.page = page;
+      this.lastDeletion = lastDeletion;
+      complete(Collections.emptyList());
+    }
+
+    ModifiedDateCursor.Page getPage() {
+      return page;
+    }
+
+    Metacard getLastDeletion() {
+      return lastDeletion;
+    }
+  }
+
+  /** The outcome of sending a {@link ReplicationOperation} to the destination */
+  private static class TransferResult {
+
+    private final ReplicationOperation operation;
+
+    private final boolean attempted;
+
+    private final Exception failure;
+
+    private final long bytesTransferred;
+
+    private final long transferTime;
+
+    private TransferResult(
+        ReplicationOperation operation,
+        boolean attempted,
+        Exception failure,
+        long bytesTransferred,
+        long transferTime) {
+      this.operation = operation;
+      this.attempted = attempted;
+      this.failure = failure;
+      this.bytesTransferred = bytesTransferred;
+      this.transferTime = transferTime;
+    }
+
+    static TransferResult success(
+        ReplicationOperation operation, long bytesTransferred, long transferTime) {
+      return new TransferResult(operation, true, null, bytesTransferred, transferTime);
+    }
+
+    static TransferResult failure(ReplicationOperation operation, Exception failure) {
+      return new TransferResult(operation, true, failure, 0, 0);
+    }
+
+    /** The transfer was never started because replication was stopped */
+    static TransferResult notAttempted(ReplicationOperation operation) {
+      return new TransferResult(operation, false, null, 0, 0);
+    }
+
+    ReplicationOperation getOperation() {
+      return operation;
+    }
+
+    boolean wasAttempted() {
+      return attempted;
+    }
+
+    /** @return the reason the transfer failed, or {@code null} if it succeeded */
+    Exception getFailure() {
+      return failure;
+    }
+
+    long getBytesTransferred() {
+      return bytesTransferred;
+    }
+
+    /** @return how long the transfer took in milliseconds */
+    long getTransferTime() {
+      return transferTime;
+    }
   }
 }
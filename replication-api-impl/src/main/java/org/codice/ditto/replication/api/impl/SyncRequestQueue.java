@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import org.codice.ditto.replication.api.ReplicatorConfig;
+import org.codice.ditto.replication.api.SyncRequest;
+
+/**
+ * Holds the sync requests waiting to be executed and those being executed, keyed by config id.
+ * There is at most one pending and one active request for each config. Submitting a request for a
+ * config that already has one pending is a no-op, and a request whose config is active stays
+ * pending until the active one completes.
+ *
+ * <p>Pending requests are taken highest priority first, and in the order they were submitted when
+ * their priorities are equal. A request gains one level of priority for every aging interval it has
+ * been waiting, so a steady stream of high priority requests can delay a low priority one but never
+ * hold it back forever.
+ *
+ * <p>Pending requests are kept in one first-in first-out bucket per priority. Since the requests in
+ * a bucket were submitted in order, the request at the head of each bucket is the most urgent one
+ * in it, so finding the next request to take only compares the heads of the buckets.
+ *
+ * <p>Thread safe.
+ */
+class SyncRequestQueue {
+
+  static final int MIN_PRIORITY = 1;
+
+  static final int MAX_PRIORITY = 10;
+
+  private final Map<String, Pending> pending = new HashMap<>();
+
+  /** The pending requests by priority, each in the order they were submitted */
+  private final Map<String, Pending>[] buckets = createBuckets();
+
+  private final Map<String, SyncRequest> active = new HashMap<>();
+
+  private volatile long agingIntervalMillis;
+
+  /** @param agingInterval how long a request waits to gain one level of priority */
+  SyncRequestQueue(long agingInterval, TimeUnit timeUnit) {
+    setAgingInterval(agingInterval, timeUnit);
+  }
+
+  /** Sets how long a request waits to gain one level of priority. Values less than 1 are 1. */
+  void setAgingInterval(long agingInterval, TimeUnit timeUnit) {
+    this.agingIntervalMillis = Math.max(1, timeUnit.toMillis(agingInterval));
+  }
+
+  /**
+   * Adds a request to the end of the queue unless its config already has one pending.
+   *
+   * @return {@code false} if the request was coalesced into one already pending
+   */
+  synchronized boolean submit(SyncRequest syncRequest) {
+    final String key = getKey(syncRequest.getConfig());
+    if (pending.containsKey(key)) {
+      return false;
+    }
+    final Pending next = new Pending(key, syncRequest, System.currentTimeMillis());
+    pending.put(key, next);
+    buckets[next.priority].put(key, next);
+    notifyAll();
+    return true;
+  }
+
+  /**
+   * Waits for the most urgent pending request that can be started and marks it active. A request
+   * can only be started while there are fewer than {@code maxActive} active requests, its config
+   * isn't already active and {@code canStart} accepts it. {@code canStart} is only called for the
+   * request that is about to be taken, so it can claim whatever the request needs to run.
+   */
+  synchronized SyncRequest take(IntSupplier maxActive, Predicate<SyncRequest> canStart)
+      throws InterruptedException {
+    while (true) {
+      if (active.size() < maxActive.getAsInt()) {
+        final UrgencyIterator candidates = new UrgencyIterator();
+        while (candidates.hasNext()) {
+          final Pending next = candidates.next();
+          if (!active.containsKey(next.key) && canStart.test(next.syncRequest)) {
+            remove(next.key);
+            active.put(next.key, next.syncRequest);
+            return next.syncRequest;
+          }
+        }
+      }
+      wait();
+    }
+  }
+
+  /** Removes a request from the active requests once it is done executing. */
+  synchronized void complete(SyncRequest syncRequest) {
+    active.remove(getKey(syncRequest.getConfig()), syncRequest);
+    notifyAll();
+  }
+
+  /**
+   * Removes the pending request for a config, if there is one.
+   *
+   * @return the removed request, or {@code null} if there wasn't one
+   */
+  synchronized SyncRequest cancel(String configId) {
+    final Pending removed = remove(configId);
+    return removed == null ? null : removed.syncRequest;
+  }
+
+  /** Wakes up {@link #take} to check again, for when something it depends on may have changed. */
+  synchronized void signal() {
+    notifyAll();
+  }
+
+  synchronized boolean isPending(String configId) {
+    return pending.containsKey(configId);
+  }
+
+  synchronized boolean isActive(String configId) {
+    return active.containsKey(configId);
+  }
+
+  synchronized boolean isEmpty() {
+    return pending.isEmpty() && active.isEmpty();
+  }
+
+  synchronized int pendingCount() {
+    return pending.size();
+  }
+
+  synchronized int activeCount() {
+    return active.size();
+  }
+
+  /** @return a copy of the pending requests in the order they would be taken now */
+  synchronized Queue<SyncRequest> getPending() {
+    final Queue<SyncRequest> requests = new ArrayDeque<>(pending.size());
+    new UrgencyIterator().forEachRemaining(next -> requests.add(next.syncRequest));
+    return requests;
+  }
+
+  /** @return a copy of the active requests */
+  synchronized Set<SyncRequest> getActive() {
+    return new HashSet<>(active.values());
+  }
+
+  private Pending remove(String key) {
+    final Pending removed = pending.remove(key);
+    if (removed != null) {
+      buckets[removed.priority].remove(key);
+    }
+    return removed;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Pending>[] createBuckets() {
+    final Map<String, Pending>[] buckets = new Map[MAX_PRIORITY + 1];
+    for (int priority = MIN_PRIORITY; priority <= MAX_PRIORITY; priority++) {
+      buckets[priority] = new LinkedHashMap<>();
+    }
+    return buckets;
+  }
+
+  /** Configs that haven't been saved don't have an id yet, so they are told apart by name */
+  private static String getKey(ReplicatorConfig config) {
+    return config.getId() != null ? config.getId() : config.getName();
+  }
+
+  /** A request waiting to be taken, and when it was submitted */
+  private class Pending {
+
+    private final String key;
+
+    private final SyncRequest syncRequest;
+
+    private final int priority;
+
+    private final long submitted;
+
+    Pending(String key, SyncRequest syncRequest, long submitted) {
+      this.key = key;
+      this.syncRequest = syncRequest;
+      this.priority =
+          Math.min(MAX_PRIORITY, Math.max(MIN_PRIORITY, syncRequest.getConfig().getPriority()));
+      this.submitted = submitted;
+    }
+
+    long getAgedPriority(long now) {
+      return priority + (now - submitted) / agingIntervalMillis;
+    }
+
+    /** @return {@code true} if this request should be taken before the other one */
+    boolean isMoreUrgentThan(Pending other, long now) {
+      final long agedPriority = getAgedPriority(now);
+      final long otherAgedPriority = other.getAgedPriority(now);
+      return agedPriority > otherAgedPriority
+          || (agedPriority == otherAgedPriority && submitted < other.submitted);
+    }
+  }
+
+  /**
+   * Goes through the pending requests most urgent first by merging the buckets, only comparing the
+   * request at the head of each bucket. Only the requests that are gone through are looked at, so
+   * taking the most urgent request doesn't cost more the more requests are pending.
+   */
+  private class UrgencyIterator implements Iterator<Pending> {
+
+    private final long now = System.currentTimeMillis();
+
+    private final Iterator<Pending>[] remaining;
+
+    private final Pending[] heads;
+
+    @SuppressWarnings("unchecked")
+    UrgencyIterator() {
+      remaining = new Iterator[buckets.length];
+      heads = new Pending[buckets.length];
+      for (int priority = MIN_PRIORITY; priority <= MAX_PRIORITY; priority++) {
+        remaining[priority] = buckets[priority].values().iterator();
+        heads[priority] = remaining[priority].hasNext() ? remaining[priority].next() : null;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      for (Pending head : heads) {
+        if (head != null) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Pending next() {
+      int mostUrgent = -1;
+      for (int priority = MIN_PRIORITY; priority <= MAX_PRIORITY; priority++) {
+        if (heads[priority] != null
+            && (mostUrgent < 0 || heads[priority].isMoreUrgentThan(heads[mostUrgent], now))) {
+          mostUrgent = priority;
+        }
+      }
+      if (mostUrgent < 0) {
+        throw new NoSuchElementException("No more pending requests");
+      }
+
+      final Pending next = heads[mostUrgent];
+      heads[mostUrgent] = remaining[mostUrgent].hasNext() ? remaining[mostUrgent].next() : null;
+      return next;
+    }
+  }
+}
@@ -19,21 +19,34 @@ import org.codice.ditto.replication.api.Status;
 
 public class SyncResponse {
   private final long bytesTransferred;
+  private final long transferTime;
   private final long itemsReplicated;
   private final long itemsFailed;
   private final Status status;
 
-  SyncResponse(long itemsReplicated, long itemsFailed, long bytesTransferred, Status status) {
+  SyncResponse(
+      long itemsReplicated,
+      long itemsFailed,
+      long bytesTransferred,
+      long transferTime,
+      Status status) {
     this.itemsReplicated = notNull(itemsReplicated);
     this.itemsFailed = notNull(itemsFailed);
     this.bytesTransferred = notNull(bytesTransferred);
+    this.transferTime = notNull(transferTime);
     this.status = notNull(status);
   }
 
+  /** @return the number of resource bytes read by the destination */
   public long getBytesTransferred() {
     return bytesTransferred;
   }
 
+  /** @return the time in milliseconds spent transferring items, summed over the items */
+  public long getTransferTime() {
+    return transferTime;
+  }
+
   public long getItemsReplicated() {
     return itemsReplicated;
   }
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps {@link WebClient}s around between requests so their subject and kept alive connections can
+ * be reused rather than set up again for every request. A {@link WebClient} can only be used by one
+ * thread at a time, so each one is borrowed while a request is made and returned once its response
+ * has been read.
+ *
+ * <p>At most {@code maxIdle} clients are kept between requests. Clients that haven't been used for
+ * longer than the idle timeout are closed instead of being reused, so connections the server has
+ * given up on and subjects that have expired aren't kept around.
+ */
+class WebClientPool implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WebClientPool.class);
+
+  private final Supplier<WebClient> clientFactory;
+
+  private final int maxIdle;
+
+  private final long idleTimeoutMillis;
+
+  private final Deque<IdleClient> idleClients = new ArrayDeque<>();
+
+  private boolean closed;
+
+  /**
+   * @param clientFactory creates a new client for the subject that requests are made as
+   * @param maxIdle the most clients to keep between requests
+   * @param idleTimeout how long a client can go unused before it is closed
+   */
+  WebClientPool(
+      Supplier<WebClient> clientFactory, int maxIdle, long idleTimeout, TimeUnit timeUnit) {
+    this.clientFactory = clientFactory;
+    this.maxIdle = Math.max(0, maxIdle);
+    this.idleTimeoutMillis = timeUnit.toMillis(idleTimeout);
+  }
+
+  /**
+   * Takes the most recently used client that is still fresh enough, or creates a new one if there
+   * isn't one. The client starts at its base address with no headers set, and must be given back
+   * with {@link #release(WebClient)}.
+   */
+  WebClient borrow() {
+    final long now = System.currentTimeMillis();
+    synchronized (this) {
+      IdleClient idle;
+      while ((idle = idleClients.pollFirst()) != null) {
+        if (now - idle.lastUsed <= idleTimeoutMillis) {
+          // start over from the base address without the headers of the last request
+          final WebClient client = idle.client;
+          client.reset();
+          return client;
+        }
+        LOGGER.trace("Closing web client that has been idle for {} ms", now - idle.lastUsed);
+        idle.client.close();
+      }
+    }
+
+    LOGGER.trace("Creating new web client");
+    final WebClient client = clientFactory.get();
+    keepAlive(client);
+    return client;
+  }
+
+  /** Gives back a client that is done with its request, so it can be used for the next one. */
+  void release(WebClient client) {
+    synchronized (this) {
+      if (!closed && idleClients.size() < maxIdle) {
+        idleClients.addFirst(new IdleClient(client, System.currentTimeMillis()));
+        return;
+      }
+    }
+    client.close();
+  }
+
+  /** Closes the clients being kept. Clients that are still borrowed are closed when released. */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    idleClients.forEach(idle -> idle.client.close());
+    idleClients.clear();
+  }
+
+  private void keepAlive(WebClient client) {
+    final HTTPClientPolicy policy = WebClient.getConfig(client).getHttpConduit().getClient();
+    policy.setConnection(ConnectionType.KEEP_ALIVE);
+  }
+
+  private static class IdleClient {
+
+    private final WebClient client;
+
+    private final long lastUsed;
+
+    IdleClient(WebClient client, long lastUsed) {
+      this.client = client;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
@@ -36,6 +36,16 @@ public class ReplicatorConfigImpl implements ReplicatorConfig {
 
   private int failureRetryCount;
 
+  private int batchSize;
+
+  private int transferThreadCount;
+
+  private long scheduleInterval;
+
+  private int priority;
+
+  private long maxRunDuration;
+
   public ReplicatorConfigImpl() {}
 
   public ReplicatorConfigImpl(ReplicatorConfig config) {
@@ -47,6 +57,11 @@ public class ReplicatorConfigImpl implements ReplicatorConfig {
     this.cql = config.getCql();
     this.description = config.getDescription();
     this.failureRetryCount = config.getFailureRetryCount();
+    this.batchSize = config.getBatchSize();
+    this.transferThreadCount = config.getTransferThreadCount();
+    this.scheduleInterval = config.getScheduleInterval();
+    this.priority = config.getPriority();
+    this.maxRunDuration = config.getMaxRunDuration();
   }
 
   @Override
@@ -120,4 +135,49 @@ public class ReplicatorConfigImpl implements ReplicatorConfig {
   public void setFailureRetryCount(int count) {
     failureRetryCount = count;
   }
+
+  @Override
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public int getTransferThreadCount() {
+    return transferThreadCount;
+  }
+
+  public void setTransferThreadCount(int transferThreadCount) {
+    this.transferThreadCount = transferThreadCount;
+  }
+
+  @Override
+  public long getScheduleInterval() {
+    return scheduleInterval;
+  }
+
+  public void setScheduleInterval(long scheduleInterval) {
+    this.scheduleInterval = scheduleInterval;
+  }
+
+  @Override
+  public int getPriority() {
+    return priority;
+  }
+
+  public void setPriority(int priority) {
+    this.priority = priority;
+  }
+
+  @Override
+  public long getMaxRunDuration() {
+    return maxRunDuration;
+  }
+
+  public void setMaxRunDuration(long maxRunDuration) {
+    this.maxRunDuration = maxRunDuration;
+  }
 }
@@ -85,6 +85,46 @@ public class ReplicationConfigAttributes implements ReplicationConfig, MetacardT
             false,
             false,
             BasicTypes.INTEGER_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationConfig.BATCH_SIZE,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.INTEGER_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationConfig.TRANSFER_THREAD_COUNT,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.INTEGER_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationConfig.SCHEDULE_INTERVAL,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.LONG_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationConfig.PRIORITY,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.INTEGER_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationConfig.MAX_RUN_DURATION,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.LONG_TYPE));
     DESCRIPTORS = Collections.unmodifiableSet(descriptors);
   }
 
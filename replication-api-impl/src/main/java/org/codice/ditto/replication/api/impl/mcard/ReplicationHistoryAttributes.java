@@ -94,6 +94,30 @@ public class ReplicationHistoryAttributes implements ReplicationHistory, Metacar
             false /* tokenized */,
             false /* multivalued */,
             BasicTypes.LONG_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationHistory.PULL_TRANSFER_TIME,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.LONG_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationHistory.PUSH_TRANSFER_TIME,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.LONG_TYPE));
+    descriptors.add(
+        new AttributeDescriptorImpl(
+            ReplicationHistory.REMOTE_LATENCY,
+            true /* indexed */,
+            true /* stored */,
+            false /* tokenized */,
+            false /* multivalued */,
+            BasicTypes.LONG_TYPE));
     descriptors.add(
         new AttributeDescriptorImpl(
             ReplicationHistory.STATUS,
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api;
+
+import java.util.Date;
+
+/**
+ * Tracks how far through the change set of a replication configuration replication has gotten for a
+ * single source and destination, so later runs only need to look at records changed after it.
+ */
+public interface HighWaterMark {
+
+  String getConfigurationId();
+
+  String getSource();
+
+  String getDestination();
+
+  /**
+   * Returns the metacard modified date of the latest record that has been replicated. Every record
+   * modified before this date has been replicated or recorded as failed.
+   *
+   * @return the latest replicated metacard modified date
+   */
+  Date getMetacardModified();
+
+  /**
+   * Returns the greatest id of the replicated records that were modified at exactly {@link
+   * #getMetacardModified()}. Records modified at that date with greater ids still need to be
+   * replicated.
+   *
+   * @return id of the last replicated record at the high-water mark, or {@code null} if every
+   *     record modified at that date still needs to be replicated
+   */
+  String getMetacardId();
+
+  /**
+   * Returns the version date of the latest deleted record that has been replicated. Every record
+   * deleted before this date has been replicated or recorded as failed.
+   *
+   * @return the latest replicated deletion date, or {@code null} if deletions are replicated from
+   *     {@link #getLastCompleteRunStart()}
+   */
+  Date getDeletedOn();
+
+  /**
+   * Returns the greatest id of the replicated deleted record versions that were made at exactly
+   * {@link #getDeletedOn()}.
+   *
+   * @return id of the last replicated deleted record version, or {@code null}
+   */
+  String getDeletedId();
+
+  /**
+   * Returns the start time of the last run that replicated the entire change set, or {@code null}
+   * if no run has finished yet. Deletions are known to be replicated up to this time when {@link
+   * #getDeletedOn()} isn't set.
+   *
+   * @return start time of the last complete run
+   */
+  Date getLastCompleteRunStart();
+}
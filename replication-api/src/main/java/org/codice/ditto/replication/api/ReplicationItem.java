@@ -23,6 +23,18 @@ public interface ReplicationItem {
 
   Date getMetacardModified();
 
+  /**
+   * @return the checksum of the resource when it was last replicated, or {@code null} if the
+   *     resource hasn't been replicated or the checksum is unknown
+   */
+  String getResourceChecksum();
+
+  /**
+   * @return the size in bytes of the resource when it was last replicated, or -1 if the resource
+   *     hasn't been replicated or the size is unknown
+   */
+  long getResourceSize();
+
   String getSource();
 
   String getDestination();
@@ -13,7 +13,9 @@
  */
 package org.codice.ditto.replication.api;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.codice.ddf.persistence.PersistenceException;
 
@@ -21,6 +23,17 @@ public interface ReplicationPersistentStore {
 
   Optional<ReplicationItem> getItem(String id, String source, String destination);
 
+  /**
+   * Gets the {@link ReplicationItem}s for all of the given metacard ids in a single lookup.
+   *
+   * @param ids the metacard ids to look up
+   * @param source the name of the source the items were replicated from
+   * @param destination the name of the destination the items were replicated to
+   * @return a map of metacard id to {@link ReplicationItem}. Ids without a persisted item are not
+   *     contained in the map.
+   */
+  Map<String, ReplicationItem> getItems(Collection<String> ids, String source, String destination);
+
   List<ReplicationItem> getItemsForConfig(String configId, int startIndex, int pageSize)
       throws PersistenceException;
 
@@ -28,7 +41,69 @@ public interface ReplicationPersistentStore {
 
   void deleteItem(String id, String source, String destination);
 
-  List<String> getFailureList(int maximumFailureCount, String source, String destination);
+  /**
+   * Gets a page of the ids of the metacards that failed to replicate fewer than {@code
+   * maximumFailureCount} times.
+   *
+   * @param maximumFailureCount items that have failed this many times or more are not returned
+   * @param source the name of the source the items were replicated from
+   * @param destination the name of the destination the items were replicated to
+   * @param startIndex the 0-based index of the first id to return
+   * @param pageSize the maximum number of ids to return
+   * @return the ids of the failed metacards
+   */
+  List<String> getFailureList(
+      int maximumFailureCount, String source, String destination, int startIndex, int pageSize);
 
   void deleteItemsForConfig(String configId) throws PersistenceException;
+
+  /**
+   * Gets the {@link HighWaterMark} for replicating a configuration from a source to a destination.
+   *
+   * @param configId the id of the replication configuration
+   * @param source the name of the source being replicated from
+   * @param destination the name of the destination being replicated to
+   * @return the high-water mark, or empty if nothing has been replicated yet
+   */
+  Optional<HighWaterMark> getHighWaterMark(String configId, String source, String destination);
+
+  /**
+   * Saves a {@link HighWaterMark}, replacing any existing one for the same configuration, source
+   * and destination.
+   */
+  void saveHighWaterMark(HighWaterMark highWaterMark);
+
+  void deleteHighWaterMarksForConfig(String configId) throws PersistenceException;
+
+  /**
+   * Gets the {@link SyncCheckpoint} left by the last run of a replication configuration.
+   *
+   * @param configId the id of the replication configuration
+   * @return the checkpoint, or empty if the last run finished
+   */
+  Optional<SyncCheckpoint> getCheckpoint(String configId);
+
+  /** Saves a {@link SyncCheckpoint}, replacing any existing one for the same configuration. */
+  void saveCheckpoint(SyncCheckpoint checkpoint);
+
+  void deleteCheckpoint(String configId);
+
+  /**
+   * Gets the replication configurations that were waiting to run or still running when replication
+   * last shut down.
+   *
+   * @return the ids of the replication configurations in the order they were queued, or an empty
+   *     list if there are none
+   */
+  List<String> getQueuedRuns();
+
+  /**
+   * Saves the replication configurations that are waiting to run, replacing any that were saved
+   * before, so they can be run again after a restart.
+   *
+   * @param configIds the ids of the replication configurations in the order they were queued
+   */
+  void saveQueuedRuns(List<String> configIds);
+
+  void deleteQueuedRuns();
 }
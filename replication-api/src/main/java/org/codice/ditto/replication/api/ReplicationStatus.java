@@ -40,6 +40,12 @@ public class ReplicationStatus {
 
   private long pullBytes = 0;
 
+  private long pushTransferTime = 0;
+
+  private long pullTransferTime = 0;
+
+  private long remoteLatency = -1;
+
   public ReplicationStatus(String replicatorName) {
     this.replicatorName = replicatorName;
     this.id = UUID.randomUUID().toString();
@@ -142,10 +148,46 @@ public class ReplicationStatus {
     this.pullBytes = pullBytes;
   }
 
+  /**
+   * @return the time in milliseconds spent transferring the items that were pushed, summed over the
+   *     items
+   */
+  public long getPushTransferTime() {
+    return pushTransferTime;
+  }
+
+  public void setPushTransferTime(long pushTransferTime) {
+    this.pushTransferTime = pushTransferTime;
+  }
+
+  /**
+   * @return the time in milliseconds spent transferring the items that were pulled, summed over the
+   *     items
+   */
+  public long getPullTransferTime() {
+    return pullTransferTime;
+  }
+
+  public void setPullTransferTime(long pullTransferTime) {
+    this.pullTransferTime = pullTransferTime;
+  }
+
+  /**
+   * @return how long in milliseconds the remote system took to respond when the run started, or -1
+   *     if it isn't known
+   */
+  public long getRemoteLatency() {
+    return remoteLatency;
+  }
+
+  public void setRemoteLatency(long remoteLatency) {
+    this.remoteLatency = remoteLatency;
+  }
+
   @Override
   public String toString() {
     return String.format(
-        "ReplicationStatus{id='%s', replicatorName='%s', startTime=%s, duration=%d, status=%s, pushCount=%d, pullCount=%d, pushFailCount=%d, pullFailCount=%d, pushBytes=%d, pullBytes=%d}",
+        "ReplicationStatus{id='%s', replicatorName='%s', startTime=%s, duration=%d, status=%s, pushCount=%d, pullCount=%d, pushFailCount=%d, pullFailCount=%d, pushBytes=%d, pullBytes=%d, pushTransferTime=%d, pullTransferTime=%d, remoteLatency=%d}",
         id,
         replicatorName,
         startTime,
@@ -156,6 +198,9 @@ public class ReplicationStatus {
         pushFailCount,
         pullFailCount,
         pushBytes,
-        pullBytes);
+        pullBytes,
+        pushTransferTime,
+        pullTransferTime,
+        remoteLatency);
   }
 }
@@ -18,4 +18,10 @@ import java.io.Closeable;
 public interface ReplicationStore extends CatalogResourceStore, Closeable {
 
   String getRemoteName();
+
+  /**
+   * @return how long in milliseconds the store took to respond the last time it was checked to be
+   *     available, or -1 if it isn't known
+   */
+  long getLatency();
 }
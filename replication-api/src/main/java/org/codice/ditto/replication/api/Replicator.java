@@ -41,4 +41,56 @@ public interface Replicator {
    *     are none
    */
   Set<SyncRequest> getActiveSyncRequests();
+
+  /**
+   * Checks if a {@link SyncRequest} for a replication config is waiting to be executed
+   *
+   * @param configId the id of the {@link ReplicatorConfig}
+   * @return {@code true} if there is a pending {@link SyncRequest} for the config
+   */
+  boolean isPending(String configId);
+
+  /**
+   * Checks if a {@link SyncRequest} for a replication config is currently being executed
+   *
+   * @param configId the id of the {@link ReplicatorConfig}
+   * @return {@code true} if there is an active {@link SyncRequest} for the config
+   */
+  boolean isActive(String configId);
+
+  /**
+   * Cancels the pending and active {@link SyncRequest}s for a replication config. An active request
+   * stops once the items it is currently sending are done, and the next request for the config
+   * picks up where it left off.
+   *
+   * @param configId the id of the {@link ReplicatorConfig}
+   * @return {@code true} if there was a pending or active {@link SyncRequest} to cancel
+   */
+  boolean cancel(String configId);
+
+  /**
+   * Pauses replication for a config. An active {@link SyncRequest} for the config waits once the
+   * items it is currently sending are done, and pending ones are not started, until the config is
+   * resumed.
+   *
+   * @param configId the id of the {@link ReplicatorConfig}
+   * @return {@code false} if the config was already paused
+   */
+  boolean pause(String configId);
+
+  /**
+   * Resumes replication for a config that was paused with {@link #pause(String)}
+   *
+   * @param configId the id of the {@link ReplicatorConfig}
+   * @return {@code false} if the config was not paused
+   */
+  boolean resume(String configId);
+
+  /**
+   * Checks if replication for a config has been paused
+   *
+   * @param configId the id of the {@link ReplicatorConfig}
+   * @return {@code true} if the config is paused
+   */
+  boolean isPaused(String configId);
 }
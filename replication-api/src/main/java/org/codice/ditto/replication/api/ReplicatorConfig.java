@@ -76,4 +76,45 @@ public interface ReplicatorConfig {
    * @return failure retry count
    */
   int getFailureRetryCount();
+
+  /**
+   * Returns the maximum number of metacards that will be sent to the destination in a single
+   * create, update or delete request. Metacards with resources that are being replicated are always
+   * sent individually. A batch size of 1 disables batching.
+   *
+   * @return batch size
+   */
+  int getBatchSize();
+
+  /**
+   * Returns the number of threads used to transfer metacards and resources to the destination
+   * concurrently during a single replication run.
+   *
+   * @return transfer thread count
+   */
+  int getTransferThreadCount();
+
+  /**
+   * Returns how often in seconds this configuration is run automatically. A value of 0 means it is
+   * only run on request.
+   *
+   * @return schedule interval
+   */
+  long getScheduleInterval();
+
+  /**
+   * Returns how urgently runs of this configuration are executed, from 1 to 10. Pending runs with a
+   * higher priority are executed ahead of those with a lower priority.
+   *
+   * @return priority
+   */
+  int getPriority();
+
+  /**
+   * Returns how long in seconds a run of this configuration can replicate before it stops and
+   * continues in a later run. A value of 0 means runs are not limited.
+   *
+   * @return max run duration
+   */
+  long getMaxRunDuration();
 }
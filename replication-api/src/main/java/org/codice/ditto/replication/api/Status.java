@@ -21,5 +21,7 @@ public enum Status {
   SUCCESS,
   FAILURE,
   CONNECTION_LOST,
-  CONNECTION_UNAVAILABLE
+  CONNECTION_UNAVAILABLE,
+  PARTIAL,
+  CANCELED
 }
@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.api;
+
+/**
+ * Records where a replication run that did not finish left off, so the next run for the same
+ * configuration can resume from there. How far through the change set each direction got is tracked
+ * by its {@link HighWaterMark}.
+ */
+public interface SyncCheckpoint {
+
+  String getConfigurationId();
+
+  /**
+   * Returns the direction that was being replicated when the run stopped. Either {@link
+   * Direction#PULL} or {@link Direction#PUSH}.
+   *
+   * @return the interrupted direction
+   */
+  Direction getDirection();
+}
@@ -30,4 +30,14 @@ public interface ReplicationConfig {
   String TYPE = "replication-config.type";
 
   String FAILURE_RETRY_COUNT = "replication-config.failure-retry-count";
+
+  String BATCH_SIZE = "replication-config.batch-size";
+
+  String TRANSFER_THREAD_COUNT = "replication-config.transfer-thread-count";
+
+  String SCHEDULE_INTERVAL = "replication-config.schedule-interval";
+
+  String PRIORITY = "replication-config.priority";
+
+  String MAX_RUN_DURATION = "replication-config.max-run-duration";
 }
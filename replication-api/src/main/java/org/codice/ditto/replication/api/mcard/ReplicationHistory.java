@@ -27,11 +27,17 @@ public interface ReplicationHistory {
 
   String PUSH_BYTES = "replication-history.push-bytes";
 
+  String PUSH_TRANSFER_TIME = "replication-history.push-transfer-time";
+
   String PULL_COUNT = "replication-history.pull-count";
 
   String PULL_FAIL_COUNT = "replication-history.pull-fail-count";
 
   String PULL_BYTES = "replication-history.pull-bytes";
 
+  String PULL_TRANSFER_TIME = "replication-history.pull-transfer-time";
+
+  String REMOTE_LATENCY = "replication-history.remote-latency";
+
   String STATUS = "replication-history.status";
 }
@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ditto.replication.commands;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.lifecycle.Reference;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.codice.ditto.replication.api.Replicator;
+import org.codice.ditto.replication.api.ReplicatorConfig;
+
+@Service
+@Command(
+  scope = "replication",
+  name = "cancel",
+  description = "Cancel the running and pending runs of replication configurations"
+)
+public class CancelCommand extends ExistingConfigsCommands {
+
+  @Reference Replicator replicator;
+
+  @Override
+  void executeWithExistingConfig(final String configName, ReplicatorConfig config) {
+    if (replicator.cancel(config.getId())) {
+      printSuccessMessage(
+          "Replication was canceled for the replication configuration with the name \""
+              + configName
+              + "\".");
+    } else {
+      printErrorMessage(
+          "There is no running or pending replication for the replication configuration with the name \""
+              + configName
+              + "\".");
+    }
+  }
+}
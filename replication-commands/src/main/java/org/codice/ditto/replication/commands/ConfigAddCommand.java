@@ -98,6 +98,46 @@ public class ConfigAddCommand extends SubjectCommands {
   )
   int failureRetryCount = 5;
 
+  @Option(
+    name = "--batchSize",
+    aliases = {"-b"},
+    description =
+        "Maximum number of metacards to send to the remote system in a single request. Metacards with resources that are being replicated are always sent individually."
+  )
+  int batchSize = 1;
+
+  @Option(
+    name = "--transferThreadCount",
+    aliases = {"-c"},
+    description =
+        "Number of records that will be transferred to the remote system concurrently during a replication run."
+  )
+  int transferThreadCount = 1;
+
+  @Option(
+    name = "--scheduleInterval",
+    aliases = {"-i"},
+    description =
+        "Number of seconds between automatic runs of this replication configuration. A value of 0 means it is only run with replication:run."
+  )
+  long scheduleInterval = 0;
+
+  @Option(
+    name = "--priority",
+    aliases = {"-p"},
+    description =
+        "Priority from 1 to 10 of runs of this replication configuration. Pending runs with a higher priority are executed first."
+  )
+  int priority = 5;
+
+  @Option(
+    name = "--maxRunDuration",
+    aliases = {"-m"},
+    description =
+        "Number of seconds a run of this replication configuration can replicate before it stops and continues in a later run. A value of 0 means runs are not limited."
+  )
+  long maxRunDuration = 0;
+
   @Reference ReplicatorConfigLoader replicatorConfigLoader;
 
   @Override
@@ -125,6 +165,11 @@ public class ConfigAddCommand extends SubjectCommands {
       config.setReplicationType(ReplicationType.valueOf(replicationType.toUpperCase()));
       config.setDirection(Direction.valueOf(directionString.toUpperCase()));
       config.setFailureRetryCount(failureRetryCount);
+      config.setBatchSize(batchSize);
+      config.setTransferThreadCount(transferThreadCount);
+      config.setScheduleInterval(scheduleInterval);
+      config.setPriority(priority);
+      config.setMaxRunDuration(maxRunDuration);
 
       replicatorConfigLoader.saveConfig(config);
       printSuccessMessage(
@@ -105,6 +105,7 @@ public class ConfigDeleteCommand extends ExistingConfigsCommands {
     if (force || success) {
       try {
         replicatorConfigLoader.removeConfig(config);
+        removeReplicationProgress(config.getId());
         printSuccessMessage(
             "The replication configuration with the name \"" + configName + "\" was deleted.");
       } catch (ReplicationException e) {
@@ -123,6 +124,15 @@ public class ConfigDeleteCommand extends ExistingConfigsCommands {
     return true;
   }
 
+  private void removeReplicationProgress(String configId) {
+    store.deleteCheckpoint(configId);
+    try {
+      store.deleteHighWaterMarksForConfig(configId);
+    } catch (PersistenceException e) {
+      LOGGER.debug("Failed to remove the high-water marks for config {}", configId, e);
+    }
+  }
+
   private boolean removeMetacards(String id) {
     printSuccessMessage("Removing replicated metacards/products ...");
     try {
@@ -38,6 +38,11 @@ public class ConfigListCommand extends SubjectCommands {
     shellTable.column("Direction");
     shellTable.column("Type");
     shellTable.column("Failure Retry Count");
+    shellTable.column("Batch Size");
+    shellTable.column("Transfer Threads");
+    shellTable.column("Schedule Interval (s)");
+    shellTable.column("Priority");
+    shellTable.column("Max Run Duration (s)");
     shellTable.column("URL");
     shellTable.column("CQL");
     shellTable.column("Description");
@@ -51,6 +56,11 @@ public class ConfigListCommand extends SubjectCommands {
               replicatorConfig.getDirection(),
               replicatorConfig.getReplicationType(),
               replicatorConfig.getFailureRetryCount(),
+              replicatorConfig.getBatchSize(),
+              replicatorConfig.getTransferThreadCount(),
+              replicatorConfig.getScheduleInterval(),
+              replicatorConfig.getPriority(),
+              replicatorConfig.getMaxRunDuration(),
               replicatorConfig.getUrl(),
               replicatorConfig.getCql(),
               replicatorConfig.getDescription());
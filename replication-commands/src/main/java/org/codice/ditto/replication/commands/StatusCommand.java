@@ -62,6 +62,7 @@ public class StatusCommand extends SubjectCommands {
     shellTable.column("# Pushed");
     shellTable.column("# Push Ingests Failed");
     shellTable.column("MB Pushed");
+    shellTable.column("Latency (ms)");
     shellTable.column("Start Time");
     shellTable.emptyTableText("There are no running, pending, or completed replication jobs.");
 
@@ -100,6 +101,7 @@ public class StatusCommand extends SubjectCommands {
               replicationStatus.getPushCount(),
               replicationStatus.getPushFailCount(),
               String.format("%.2f", (double) replicationStatus.getPushBytes() / MB_PER_BYTE),
+              replicationStatus.getRemoteLatency() < 0 ? "" : replicationStatus.getRemoteLatency(),
               replicationStatus.getStartTime());
     }
 